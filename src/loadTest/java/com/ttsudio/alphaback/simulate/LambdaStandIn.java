@@ -0,0 +1,173 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP stand-in for the modelRegistryService, serviceConsumer and gatherData Lambdas,
+ * speaking the Lambda Invoke wire format ({@code POST /2015-03-31/functions/{name}/invocations})
+ * so the real AWS client can be pointed at it with {@code simulate.lambda.endpoint}.
+ * Responses come from the bundled JSON fixtures; gatherData answers for any requested symbol
+ * by reusing fixture series, repeated {@code barCopies} times further back in history.
+ * Every invocation sleeps {@code latencyMs} plus up to {@code jitterMs} to mimic Lambda round trips.
+ */
+public class LambdaStandIn implements AutoCloseable {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final long latencyMs;
+    private final long jitterMs;
+    private final List<JsonNode> fixtureSeries = new ArrayList<>();
+    private final String seriesField;
+    private final String serviceConsumerPayload;
+    private final String modelPayload;
+    private final AtomicLong invocations = new AtomicLong();
+    private final HttpServer server;
+
+    public LambdaStandIn(int port, long latencyMs, long jitterMs, int barCopies, String modelClassPath) throws IOException {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+
+        JsonNode gather = mapper.readTree(resource("/gatherDataResponse.json"));
+        String field = "Time Series (Daily)";
+        for (Iterator<JsonNode> it = gather.get("data").elements(); it.hasNext();) {
+            JsonNode stock = it.next();
+            fixtureSeries.add(scale(stock.get(field), barCopies));
+        }
+        this.seriesField = field;
+        this.serviceConsumerPayload = resource("/serviceConsumerResponse.json");
+
+        // no downloadUrl: the class is expected in the local models/ directory
+        ObjectNode body = mapper.createObjectNode();
+        body.put("classPath", modelClassPath);
+        body.put("downloadUrl", "");
+        ObjectNode model = mapper.createObjectNode();
+        model.put("statusCode", 200);
+        model.put("body", mapper.writeValueAsString(body));
+        this.modelPayload = mapper.writeValueAsString(model);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/2015-03-31/functions/", this::handle);
+    }
+
+    public LambdaStandIn start() {
+        server.start();
+        return this;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public String endpoint() {
+        return "http://localhost:" + port();
+    }
+
+    public long invocations() {
+        return invocations.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            invocations.incrementAndGet();
+            String path = URLDecoder.decode(exchange.getRequestURI().getPath(), StandardCharsets.UTF_8);
+            String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            simulateLatency();
+
+            String response;
+            if (path.contains(SimulateApplication.GET_MODEL_FUNCTION_NAME)) {
+                response = modelPayload;
+            } else if (path.contains(SimulateApplication.SERVICE_CONSUMER_FUNCTION_NAME)) {
+                response = serviceConsumerPayload;
+            } else if (path.contains(SimulateApplication.GATHER_DATA_FUNCTION_NAME)) {
+                response = gatherData(request);
+            } else {
+                byte[] err = ("{\"message\":\"Function not found: " + path + "\"}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("X-Amzn-ErrorType", "ResourceNotFoundException");
+                exchange.sendResponseHeaders(404, err.length);
+                exchange.getResponseBody().write(err);
+                return;
+            }
+
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private String gatherData(String request) throws IOException {
+        JsonNode req = mapper.readTree(request);
+        String csv = req.has("symbol") ? req.get("symbol").asText() : "IBM";
+        ObjectNode root = mapper.createObjectNode();
+        root.put("statusCode", 200);
+        root.put("message", "Data gathered successfully");
+        ObjectNode data = root.putObject("data");
+        for (String raw : csv.split(",")) {
+            String symbol = raw.trim();
+            if (symbol.isEmpty()) continue;
+            JsonNode series = fixtureSeries.get(Math.floorMod(symbol.hashCode(), fixtureSeries.size()));
+            data.putObject(symbol).set(seriesField, series);
+        }
+        return mapper.writeValueAsString(root);
+    }
+
+    // repeats the series back in time so each copy lands on distinct, older dates
+    private ObjectNode scale(JsonNode series, int copies) {
+        List<String> dates = new ArrayList<>();
+        series.fieldNames().forEachRemaining(dates::add);
+        dates.sort(null);
+        long span = ChronoUnit.DAYS.between(LocalDate.parse(dates.get(0)), LocalDate.parse(dates.get(dates.size() - 1))) + 1;
+
+        ObjectNode out = mapper.createObjectNode();
+        for (int c = 0; c < Math.max(1, copies); c++) {
+            for (Iterator<Map.Entry<String, JsonNode>> it = series.fields(); it.hasNext();) {
+                Map.Entry<String, JsonNode> bar = it.next();
+                out.set(LocalDate.parse(bar.getKey()).minusDays(c * span).toString(), bar.getValue());
+            }
+        }
+        return out;
+    }
+
+    private void simulateLatency() {
+        long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String resource(String path) throws IOException {
+        try (InputStream in = LambdaStandIn.class.getResourceAsStream(path)) {
+            if (in == null) throw new IOException("Resource not found: " + path);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Open-loop load generator for {@code /simulate}. Requests are launched on a fixed schedule at the
+ * target rate regardless of how fast earlier ones complete, and latency is measured from each
+ * request's scheduled start, so queueing inside the service shows up in the tail instead of
+ * silently lowering the offered load.
+ */
+public class LoadDriver {
+
+    /** A weighted request shape; {@code stocks} is a supplier so profiles can vary symbols per request. */
+    public record Profile(String name, int weight, Supplier<String> stocks, String modelId, String timeStep) {}
+
+    public record Stats(String name, long count, long errors, double throughput, double p50Ms, double p99Ms, double p999Ms, double maxMs) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-12s n=%-7d err=%-5d %8.1f req/s  p50=%8.2fms  p99=%8.2fms  p999=%8.2fms  max=%8.2fms",
+                    name, count, errors, throughput, p50Ms, p99Ms, p999Ms, maxMs);
+        }
+    }
+
+    private record Sample(String profile, long latencyNanos, boolean ok) {}
+
+    private final String baseUrl;
+    private final List<Profile> profiles;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    public LoadDriver(String baseUrl, List<Profile> profiles) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.profiles = profiles;
+    }
+
+    public List<Stats> run(double ratePerSecond, Duration duration, long seed) throws InterruptedException {
+        Random random = new Random(seed);
+        int totalWeight = profiles.stream().mapToInt(Profile::weight).sum();
+        long intervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        long total = (long) (ratePerSecond * duration.toMillis() / 1000.0);
+
+        ConcurrentLinkedQueue<Sample> samples = new ConcurrentLinkedQueue<>();
+        long start = System.nanoTime();
+        ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor();
+        for (long i = 0; i < total; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+
+            Profile profile = pick(random, totalWeight);
+            String stocks = profile.stocks().get();
+            exec.submit(() -> {
+                boolean ok = send(profile, stocks);
+                samples.add(new Sample(profile.name(), System.nanoTime() - scheduled, ok));
+            });
+        }
+        exec.shutdown();
+        exec.awaitTermination(5, TimeUnit.MINUTES);
+        double elapsedSec = (System.nanoTime() - start) / 1e9;
+
+        List<Stats> stats = new ArrayList<>();
+        Map<String, List<Sample>> byProfile = new LinkedHashMap<>();
+        for (Profile p : profiles) byProfile.put(p.name(), new ArrayList<>());
+        List<Sample> all = new ArrayList<>(samples);
+        for (Sample s : all) byProfile.get(s.profile()).add(s);
+        for (Map.Entry<String, List<Sample>> e : byProfile.entrySet()) {
+            stats.add(summarize(e.getKey(), e.getValue(), elapsedSec));
+        }
+        stats.add(summarize("all", all, elapsedSec));
+        return stats;
+    }
+
+    private Profile pick(Random random, int totalWeight) {
+        int r = random.nextInt(totalWeight);
+        for (Profile p : profiles) {
+            r -= p.weight();
+            if (r < 0) return p;
+        }
+        return profiles.get(profiles.size() - 1);
+    }
+
+    private boolean send(Profile profile, String stocks) {
+        String query = "stocks=" + URLEncoder.encode(stocks, StandardCharsets.UTF_8)
+                + "&modelId=" + URLEncoder.encode(profile.modelId(), StandardCharsets.UTF_8)
+                + "&timeStep=" + URLEncoder.encode(profile.timeStep(), StandardCharsets.UTF_8);
+        HttpRequest req = HttpRequest.newBuilder(URI.create(baseUrl + "/simulate?" + query))
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        try {
+            HttpResponse<Void> res = httpClient.send(req, HttpResponse.BodyHandlers.discarding());
+            return res.statusCode() == 200;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    static Stats summarize(String name, List<Sample> samples, double elapsedSec) {
+        long[] latencies = samples.stream().mapToLong(Sample::latencyNanos).toArray();
+        Arrays.sort(latencies);
+        long errors = samples.stream().filter(s -> !s.ok()).count();
+        return new Stats(name, latencies.length, errors, latencies.length / elapsedSec,
+                percentileMs(latencies, 0.50), percentileMs(latencies, 0.99), percentileMs(latencies, 0.999),
+                latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+    }
+
+    // nearest-rank percentile over sorted nanosecond latencies
+    static double percentileMs(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+    }
+}
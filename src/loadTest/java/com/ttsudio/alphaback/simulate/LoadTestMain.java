@@ -0,0 +1,107 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * End-to-end load test: starts the Lambda stand-in, boots the service against it (unless
+ * {@code --target} points at an already running instance), replays a mixed request profile at the
+ * target rate and prints throughput and latency percentiles.
+ *
+ * <pre>./gradlew loadTest -PloadTestArgs="--rate=100 --duration=60 --latency-ms=40 --max-p99-ms=500"</pre>
+ *
+ * Options: rate (req/s, default 20), duration (s, 30), warmup (s, 5), latency-ms (30), jitter-ms (20),
+ * bar-copies (how many times the fixture history is repeated, 10), stand-in-port (0 = any),
+ * target (base URL of a running service), max-p99-ms (exit non-zero above this).
+ */
+public class LoadTestMain {
+    static final String MODEL_ID = "726034f9-44c7-49df-9fac-1241da8ef221";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+        double rate = Double.parseDouble(opts.getOrDefault("rate", "20"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(opts.getOrDefault("duration", "30")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(opts.getOrDefault("warmup", "5")));
+        long latencyMs = Long.parseLong(opts.getOrDefault("latency-ms", "30"));
+        long jitterMs = Long.parseLong(opts.getOrDefault("jitter-ms", "20"));
+        int barCopies = Integer.parseInt(opts.getOrDefault("bar-copies", "10"));
+        int standInPort = Integer.parseInt(opts.getOrDefault("stand-in-port", "0"));
+        String target = opts.get("target");
+
+        try (LambdaStandIn standIn = new LambdaStandIn(standInPort, latencyMs, jitterMs, barCopies,
+                "com/ttsudio/alphaback/ExampleModel").start()) {
+            System.out.println("Lambda stand-in listening on " + standIn.endpoint());
+
+            ConfigurableApplicationContext app = null;
+            if (target == null) {
+                // the stand-in does not check signatures, but the SDK still wants credentials and a region
+                System.setProperty("aws.accessKeyId", System.getProperty("aws.accessKeyId", "load-test"));
+                System.setProperty("aws.secretAccessKey", System.getProperty("aws.secretAccessKey", "load-test"));
+                System.setProperty("aws.region", System.getProperty("aws.region", "us-east-2"));
+                app = SpringApplication.run(SimulateApplication.class,
+                        "--server.port=0", "--simulate.lambda.endpoint=" + standIn.endpoint());
+                target = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            }
+
+            try {
+                LoadDriver driver = new LoadDriver(target, profiles());
+                if (!warmup.isZero()) {
+                    System.out.println("Warming up for " + warmup.toSeconds() + "s");
+                    driver.run(rate, warmup, 1);
+                }
+                System.out.println("Driving " + target + "/simulate at " + rate + " req/s for " + duration.toSeconds() + "s");
+                List<LoadDriver.Stats> stats = driver.run(rate, duration, 42);
+                stats.forEach(System.out::println);
+                System.out.println("Lambda stand-in invocations: " + standIn.invocations());
+
+                String maxP99 = opts.get("max-p99-ms");
+                LoadDriver.Stats overall = stats.get(stats.size() - 1);
+                if (maxP99 != null && overall.p99Ms() > Double.parseDouble(maxP99)) {
+                    System.err.println("p99 " + overall.p99Ms() + "ms exceeds budget of " + maxP99 + "ms");
+                    System.exit(1);
+                }
+                if (overall.errors() > 0) {
+                    System.err.println(overall.errors() + " requests failed");
+                    System.exit(1);
+                }
+            } finally {
+                if (app != null) SpringApplication.exit(app);
+            }
+        }
+    }
+
+    // cached (repeat tickers), wide (many symbols) and cold (unseen tickers that always reach gatherData)
+    static List<LoadDriver.Profile> profiles() {
+        return List.of(
+                new LoadDriver.Profile("daily", 60, () -> "AAPL,GOOGL,NVDA", MODEL_ID, "TIME_SERIES_DAILY"),
+                new LoadDriver.Profile("weekly", 15, () -> "AAPL,GOOGL,NVDA", MODEL_ID, "TIME_SERIES_WEEKLY"),
+                new LoadDriver.Profile("wide", 15, LoadTestMain::wideUniverse, MODEL_ID, "TIME_SERIES_DAILY"),
+                new LoadDriver.Profile("cold", 10, () -> "COLD" + ThreadLocalRandom.current().nextInt(1_000_000), MODEL_ID, "TIME_SERIES_DAILY"));
+    }
+
+    private static String wideUniverse() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("W").append(i);
+        }
+        return sb.toString();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int eq = arg.indexOf('=');
+            if (eq < 0) opts.put(arg.substring(2), "true");
+            else opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return opts;
+    }
+}
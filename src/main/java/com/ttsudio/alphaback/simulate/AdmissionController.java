@@ -0,0 +1,207 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Bounds the heap that concurrent simulations may claim. Each request reserves its estimated
+ * footprint from a global byte budget before any data is fetched; requests that do not fit wait
+ * in FIFO order (so large runs are not starved by a stream of small ones) for up to
+ * {@code maxWaitMs} and are then rejected with 503, as is anything past {@code maxQueued}.
+ * A single request larger than the whole budget is rejected with 413 up front.
+ */
+public class AdmissionController {
+    // parsed JsonNode tree per bar (five text fields plus keys and map entries) and its share of the raw payload
+    static final long BYTES_PER_BAR = 1200;
+    static final long BYTES_PER_DECISION = 96;
+    // fixed per-run overhead: model class loader, response, request buffers
+    static final long BASE_BYTES = 256 * 1024;
+
+    private volatile long budgetBytes;
+    private volatile long maxWaitMs;
+    private volatile int maxQueued;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Deque<Object> waiting = new ArrayDeque<>();
+    private long reservedBytes;
+
+    private final Map<String, Long> observedBars = new ConcurrentHashMap<>();
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public AdmissionController(long budgetBytes, long maxWaitMs, int maxQueued) {
+        this.budgetBytes = budgetBytes;
+        this.maxWaitMs = maxWaitMs;
+        this.maxQueued = maxQueued;
+    }
+
+    public void setBudgetBytes(long budgetBytes) {
+        lock.lock();
+        try {
+            this.budgetBytes = budgetBytes;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setMaxWaitMs(long maxWaitMs) {
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Expected bars per symbol: the most seen so far for this timeStep, or until then a
+     * conservative default sized for a full-history fetch.
+     */
+    long expectedBars(String timeStep) {
+        Long seen = observedBars.get(timeStep);
+        return seen != null ? seen : defaultBars(timeStep);
+    }
+
+    /** Records the largest per-symbol series a completed fetch actually returned. */
+    public void observe(String timeStep, long barsPerSymbol) {
+        if (timeStep != null && barsPerSymbol > 0) observedBars.merge(timeStep, barsPerSymbol, Math::max);
+    }
+
+    static long defaultBars(String timeStep) {
+        BarResampler.Resolution resolution = BarResampler.Resolution.of(timeStep);
+        if (resolution == null) return 5000;
+        switch (resolution.unit()) {
+            case WEEKLY: return 1300;
+            case MONTHLY: return 300;
+            // one month of regular-session bars
+            case MINUTE: return 22L * 390 / resolution.minutes();
+            default: return 5000;
+        }
+    }
+
+    private long expectedBars(List<String> stocks, String timeStep) {
+        long symbols = stocks == null || stocks.isEmpty() ? 1 : stocks.size();
+        return symbols * expectedBars(timeStep);
+    }
+
+    /** Decisions a run may record: the request's cap, but never more than one per expected bar. */
+    int decisionBudget(List<String> stocks, String timeStep, SimulationOptions options) {
+        if (!options.isIncludeDecisions()) return 0;
+        return (int) Math.max(0, Math.min(options.getMaxDecisions(), expectedBars(stocks, timeStep)));
+    }
+
+    long estimate(List<String> stocks, String timeStep, SimulationOptions options) {
+        return BASE_BYTES + expectedBars(stocks, timeStep) * BYTES_PER_BAR
+                + (long) decisionBudget(stocks, timeStep, options) * BYTES_PER_DECISION;
+    }
+
+    public Reservation acquire(long bytes) {
+        if (bytes > budgetBytes) {
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Simulation needs ~" + (bytes >> 20) + "MB, over the " + (budgetBytes >> 20) + "MB budget; reduce symbols or timeStep granularity");
+        }
+        lock.lock();
+        try {
+            if (waiting.isEmpty() && reservedBytes + bytes <= budgetBytes) {
+                return admit(bytes);
+            }
+            if (waiting.size() >= maxQueued) {
+                rejected.incrementAndGet();
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Simulation queue is full");
+            }
+
+            Object ticket = new Object();
+            waiting.addLast(ticket);
+            queued.incrementAndGet();
+            long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+            try {
+                while (waiting.peekFirst() != ticket || reservedBytes + bytes > budgetBytes) {
+                    if (remaining <= 0) {
+                        rejected.incrementAndGet();
+                        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                                "Timed out waiting for " + (bytes >> 20) + "MB of simulation memory");
+                    }
+                    remaining = changed.awaitNanos(remaining);
+                }
+                return admit(bytes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.incrementAndGet();
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while queued", e);
+            } finally {
+                // leaving the queue (admitted or not) may unblock the next waiter
+                waiting.remove(ticket);
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Reservation admit(long bytes) {
+        reservedBytes += bytes;
+        admitted.incrementAndGet();
+        return new Reservation(bytes);
+    }
+
+    private void release(long bytes) {
+        lock.lock();
+        try {
+            reservedBytes -= bytes;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("budgetBytes", budgetBytes);
+            stats.put("reservedBytes", reservedBytes);
+            stats.put("waiting", (long) waiting.size());
+        } finally {
+            lock.unlock();
+        }
+        stats.put("admitted", admitted.get());
+        stats.put("queued", queued.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    public class Reservation implements AutoCloseable {
+        private final long bytes;
+        private boolean released;
+
+        private Reservation(long bytes) {
+            this.bytes = bytes;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        @Override
+        public void close() {
+            if (released) return;
+            released = true;
+            release(bytes);
+        }
+    }
+}
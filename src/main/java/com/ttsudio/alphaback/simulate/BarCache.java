@@ -0,0 +1,186 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Bounded, time-limited cache of parsed per-symbol series keyed by (timeStep, symbol), capped by
+ * entry count and by estimated heap ({@link AdmissionController#BYTES_PER_BAR} per bar).
+ * Resampling bases (daily and intraday) are fetched with {@code outputsize=full} and stored whole;
+ * reads of them return the latest {@link #COMPACT_BARS} bars, which is what upstream answers by
+ * default. Resampled series are derived on demand from a full base so a coarser timeStep costs no
+ * extra cache space or upstream call. Intraday entries expire on their own, shorter TTL.
+ */
+public class BarCache {
+    // bars in upstream's default (compact) response
+    static final int COMPACT_BARS = 100;
+
+    private volatile int maxEntries;
+    private volatile long maxBytes;
+    private volatile long ttlMs;
+    private volatile long intradayTtlMs;
+    private long bytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong resampled = new AtomicLong();
+
+    private record Key(String timeStep, String symbol) {}
+
+    private record Entry(JsonNode series, boolean full, long loadedAt, long bytes) {}
+
+    // access-ordered so the eldest entry is the least recently used
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public BarCache(int maxEntries, long ttlMs) {
+        this(maxEntries, Long.MAX_VALUE, ttlMs);
+    }
+
+    public BarCache(int maxEntries, long maxBytes, long ttlMs) {
+        this(maxEntries, maxBytes, ttlMs, ttlMs);
+    }
+
+    public BarCache(int maxEntries, long maxBytes, long ttlMs, long intradayTtlMs) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlMs = ttlMs;
+        this.intradayTtlMs = intradayTtlMs;
+    }
+
+    /** Whether {@code timeStep} is a resampling base, fetched at full size so coarser steps can be derived from it. */
+    public static boolean fetchesFull(String timeStep) {
+        BarResampler.Resolution r = BarResampler.Resolution.of(timeStep);
+        return r != null && (r.unit() == BarResampler.Unit.DAILY || r.unit() == BarResampler.Unit.MINUTE);
+    }
+
+    /** The latest {@link #COMPACT_BARS} bars of a series, newest first; the series itself if it is no longer. */
+    public static JsonNode compact(JsonNode series) {
+        if (series.size() <= COMPACT_BARS) return series;
+        List<String> keys = new ArrayList<>(series.size());
+        series.fieldNames().forEachRemaining(keys::add);
+        // bar keys are ISO dates/timestamps, so lexical order is time order
+        keys.sort(Comparator.reverseOrder());
+        ObjectNode latest = JsonNodeFactory.instance.objectNode();
+        for (String key : keys.subList(0, COMPACT_BARS)) latest.set(key, series.get(key));
+        return latest;
+    }
+
+    public synchronized void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        evict();
+    }
+
+    public void setTtlMs(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    public void setIntradayTtlMs(long intradayTtlMs) {
+        this.intradayTtlMs = intradayTtlMs;
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        evict();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /** The cached series as upstream would answer a default request for it, or null. */
+    public synchronized JsonNode get(String timeStep, String symbol) {
+        Entry e = fresh(new Key(timeStep, symbol));
+        if (e == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return e.full() ? compact(e.series()) : e.series();
+    }
+
+    public void put(String timeStep, String symbol, JsonNode series) {
+        put(timeStep, symbol, series, false);
+    }
+
+    /** Stores a fetched series; {@code full} marks an {@code outputsize=full} fetch that coarser steps may be derived from. */
+    public synchronized void put(String timeStep, String symbol, JsonNode series, boolean full) {
+        Entry entry = new Entry(series, full, System.currentTimeMillis(), series.size() * AdmissionController.BYTES_PER_BAR);
+        Entry previous = entries.put(new Key(timeStep, symbol), entry);
+        if (previous != null) bytes -= previous.bytes();
+        bytes += entry.bytes();
+        evict();
+    }
+
+    // the live entry for key, dropping it if it has outlived its TTL
+    private Entry fresh(Key key) {
+        Entry e = entries.get(key);
+        if (e == null) return null;
+        BarResampler.Resolution r = BarResampler.Resolution.of(key.timeStep());
+        long ttl = r != null && r.unit() == BarResampler.Unit.MINUTE ? intradayTtlMs : ttlMs;
+        if (System.currentTimeMillis() - e.loadedAt() <= ttl) return e;
+        remove(key);
+        return null;
+    }
+
+    private void remove(Key key) {
+        Entry e = entries.remove(key);
+        if (e != null) bytes -= e.bytes();
+    }
+
+    // least recently used first; a series bigger than the whole cap is not kept at all
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && it.hasNext()) {
+            bytes -= it.next().bytes();
+            it.remove();
+        }
+    }
+
+    /**
+     * Builds {@code timeStep} for a symbol from the finest cached full-size series that can produce it,
+     * or returns null. Upstream answers intraday steps with the latest {@link #COMPACT_BARS} bars and
+     * weekly/monthly with the full history, so the derived series is trimmed the same way; a compact
+     * base never stands in for either.
+     */
+    public JsonNode resampled(String timeStep, String symbol) {
+        BarResampler.Resolution target = BarResampler.Resolution.of(timeStep);
+        if (target == null) return null;
+        for (String source : target.sources()) {
+            Entry e;
+            synchronized (this) {
+                e = fresh(new Key(source, symbol));
+            }
+            if (e != null && e.full()) {
+                JsonNode series = BarResampler.resample(e.series(), target);
+                resampled.incrementAndGet();
+                return target.unit() == BarResampler.Unit.MINUTE ? compact(series) : series;
+            }
+        }
+        return null;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("resampled", resampled.get());
+        synchronized (this) {
+            stats.put("entries", (long) entries.size());
+            stats.put("bytes", bytes);
+            stats.put("maxBytes", maxBytes);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,8 @@
+package com.ttsudio.alphaback.simulate;
+
+/** Receives what the engine's date loop produces: the notional of each fill and the book after each bar. */
+interface BarListener {
+    void onTrade(double notional);
+
+    void onBar(String date, double cash, double holdings);
+}
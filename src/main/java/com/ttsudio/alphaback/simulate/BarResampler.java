@@ -0,0 +1,151 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Derives coarser OHLCV bars from a finer series in a single pass: weekly and monthly from
+ * daily, and N-minute from M-minute intraday when N is a multiple of M. Output keys follow the
+ * upstream convention: weekly/monthly bars are keyed by their last trading day, intraday bars
+ * by their start time.
+ */
+public final class BarResampler {
+    private static final Pattern INTRADAY = Pattern.compile("TIME_SERIES_INTRADAY_(\\d+)MIN");
+    private static final DateTimeFormatter INTRADAY_KEY = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private BarResampler() {
+    }
+
+    public enum Unit { MINUTE, DAILY, WEEKLY, MONTHLY }
+
+    public record Resolution(Unit unit, int minutes) {
+        /** Parses a timeStep; returns null for steps we cannot resample (e.g. adjusted or bare intraday). */
+        public static Resolution of(String timeStep) {
+            if (timeStep == null) return null;
+            switch (timeStep) {
+                case "TIME_SERIES_DAILY": return new Resolution(Unit.DAILY, 0);
+                case "TIME_SERIES_WEEKLY": return new Resolution(Unit.WEEKLY, 0);
+                case "TIME_SERIES_MONTHLY": return new Resolution(Unit.MONTHLY, 0);
+                default:
+                    Matcher m = INTRADAY.matcher(timeStep);
+                    return m.matches() ? new Resolution(Unit.MINUTE, Integer.parseInt(m.group(1))) : null;
+            }
+        }
+
+        /** Finer timeSteps that this resolution can be built from, cheapest (fewest bars) first. */
+        public List<String> sources() {
+            switch (unit) {
+                case WEEKLY:
+                case MONTHLY:
+                    return List.of("TIME_SERIES_DAILY");
+                case MINUTE:
+                    List<String> finer = new ArrayList<>();
+                    for (int m = minutes / 2; m >= 1; m--) {
+                        if (minutes % m == 0) finer.add("TIME_SERIES_INTRADAY_" + m + "MIN");
+                    }
+                    return finer;
+                default:
+                    return List.of();
+            }
+        }
+    }
+
+    public static ObjectNode resample(JsonNode series, Resolution target) {
+        Map<String, Bucket> buckets = new HashMap<>();
+        series.fields().forEachRemaining(bar -> {
+            String key = bar.getKey();
+            JsonNode b = bar.getValue();
+            Bucket bucket = buckets.computeIfAbsent(bucketId(key, target), id -> new Bucket());
+            bucket.add(key, field(b, "1. open", "open"), field(b, "2. high", "high"),
+                    field(b, "3. low", "low"), field(b, "4. close", "close"), field(b, "5. volume", "volume"));
+        });
+
+        List<Bucket> ordered = new ArrayList<>();
+        buckets.forEach((id, bucket) -> {
+            bucket.outKey = target.unit() == Unit.MINUTE ? id : bucket.lastKey;
+            ordered.add(bucket);
+        });
+        // newest first, like the upstream payloads
+        ordered.sort((a, b) -> b.outKey.compareTo(a.outKey));
+
+        ObjectNode out = JsonNodeFactory.instance.objectNode();
+        for (Bucket bucket : ordered) {
+            if (Double.isNaN(bucket.close)) continue;
+            ObjectNode bar = out.putObject(bucket.outKey);
+            bar.put("1. open", format(bucket.open));
+            bar.put("2. high", format(bucket.high));
+            bar.put("3. low", format(bucket.low));
+            bar.put("4. close", format(bucket.close));
+            bar.put("5. volume", Long.toString(bucket.volume));
+        }
+        return out;
+    }
+
+    private static String bucketId(String key, Resolution target) {
+        switch (target.unit()) {
+            case WEEKLY:
+                return LocalDate.parse(key.substring(0, 10)).with(DayOfWeek.MONDAY).toString();
+            case MONTHLY:
+                return key.substring(0, 7);
+            case MINUTE:
+                LocalDateTime t = LocalDateTime.parse(key, INTRADAY_KEY);
+                int minuteOfDay = t.getHour() * 60 + t.getMinute();
+                int start = minuteOfDay / target.minutes() * target.minutes();
+                return t.toLocalDate().atTime(start / 60, start % 60).format(INTRADAY_KEY);
+            default:
+                return key;
+        }
+    }
+
+    private static double field(JsonNode bar, String name, String alt) {
+        JsonNode v = bar.has(name) ? bar.get(name) : bar.get(alt);
+        if (v == null) return Double.NaN;
+        try {
+            return Double.parseDouble(v.asText());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static String format(double v) {
+        return String.format(Locale.ROOT, "%.4f", v);
+    }
+
+    private static class Bucket {
+        String firstKey;
+        String lastKey;
+        String outKey;
+        double open = Double.NaN;
+        double close = Double.NaN;
+        double high = Double.NEGATIVE_INFINITY;
+        double low = Double.POSITIVE_INFINITY;
+        long volume;
+
+        void add(String key, double o, double h, double l, double c, double v) {
+            if (firstKey == null || key.compareTo(firstKey) < 0) {
+                firstKey = key;
+                open = o;
+            }
+            if (lastKey == null || key.compareTo(lastKey) > 0) {
+                lastKey = key;
+                close = c;
+            }
+            if (!Double.isNaN(h)) high = Math.max(high, h);
+            if (!Double.isNaN(l)) low = Math.min(low, l);
+            if (!Double.isNaN(v)) volume += (long) v;
+        }
+    }
+}
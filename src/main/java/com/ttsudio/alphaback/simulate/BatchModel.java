@@ -0,0 +1,21 @@
+package com.ttsudio.alphaback.simulate;
+
+/**
+ * Optional vectorized alternative to {@link com.ttsudio.alphaback.Model} for signal-style strategies
+ * whose decisions do not depend on fills. Instead of one {@code simulateStep} call per date, the
+ * engine hands over a window of bars as primitive arrays and applies the returned orders in date
+ * order. A class implementing both interfaces is run through this one.
+ * The same instance sees every window of a run, oldest first, so it may carry state across calls.
+ * Models built against the published alphaback-model artifact cannot implement this interface;
+ * declaring a public method with the same signature is enough (see {@link ModelContracts}).
+ */
+public interface BatchModel {
+    /**
+     * @param symbols column order of {@code closes} and of the returned buffer
+     * @param dates   bar dates in this window, oldest first
+     * @param closes  row-major {@code [date][symbol]} close prices; NaN where a symbol has no bar
+     * @return row-major {@code [date][symbol]} signed order quantities: positive buys, negative sells,
+     *         0 or NaN for no order
+     */
+    float[] simulateBatch(String[] symbols, String[] dates, float[] closes);
+}
@@ -0,0 +1,61 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Cash and positions for one simulation run; orders that cannot be afforded or covered are clipped. */
+class Ledger {
+    final double startingCapital;
+    double cash;
+    final Map<String, Float> owned = new HashMap<>();
+    // average entry price per open position, for realized P&L on sells
+    private final Map<String, Float> avgCost = new HashMap<>();
+    long closedTrades;
+    long winningTrades;
+
+    Ledger(double startingCapital) {
+        this.startingCapital = startingCapital;
+        this.cash = startingCapital;
+    }
+
+    /** Applies an order and returns the notional actually traded (0 when rejected or nothing to sell). */
+    double apply(String stock, float amount, boolean isBuy, float price) {
+        if (isBuy) {
+            double cost = amount * price;
+            if (cash >= cost) {
+                cash -= cost;
+                float have = owned.getOrDefault(stock, 0f);
+                owned.put(stock, have + amount);
+                if (have + amount > 0) {
+                    avgCost.put(stock, (avgCost.getOrDefault(stock, 0f) * have + price * amount) / (have + amount));
+                }
+                return cost;
+            }
+            return 0.0;
+        } else {
+            float have = owned.getOrDefault(stock, 0f);
+            float toSell = Math.min(have, amount);
+            cash += toSell * price;
+            if (toSell > 0) {
+                closedTrades++;
+                if (price > avgCost.getOrDefault(stock, price)) winningTrades++;
+            }
+            if (toSell >= have) {
+                owned.remove(stock);
+                avgCost.remove(stock);
+            } else {
+                owned.put(stock, have - toSell);
+            }
+            return toSell * price;
+        }
+    }
+
+    double holdingsValue(Map<String, Float> prices) {
+        double value = 0.0;
+        for (Map.Entry<String, Float> e : owned.entrySet()) {
+            float lp = prices.getOrDefault(e.getKey(), 0f);
+            value += e.getValue() * lp;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import com.ttsudio.alphaback.Model;
+
+/**
+ * Recognizes the engine contracts a downloaded model class supports. Models are compiled against
+ * the published alphaback-model artifact, which does not carry {@link BatchModel}, so a class is
+ * also treated as one when it declares {@code public float[] simulateBatch(String[], String[], float[])};
+ * such instances are wrapped in an adapter that calls the method reflectively, the same way order
+ * shapes are read. Likewise a model is {@link SymbolIndependent} when it implements the marker or
+ * declares {@code public boolean isSymbolIndependent()} returning true.
+ */
+final class ModelContracts {
+
+    private ModelContracts() {}
+
+    /** Instantiates a Model or BatchModel class through its no-arg constructor; anything else is rejected. */
+    static Object instantiate(Class<?> clazz) throws ReflectiveOperationException {
+        Method batch = BatchModel.class.isAssignableFrom(clazz) ? null : batchMethod(clazz);
+        if (!Model.class.isAssignableFrom(clazz) && !BatchModel.class.isAssignableFrom(clazz) && batch == null) {
+            throw new RuntimeException("invalid class");
+        }
+        Object instance = clazz.getDeclaredConstructor().newInstance();
+        return batch != null ? new ReflectiveBatchModel(instance, batch) : instance;
+    }
+
+    /** A new, independent instance of the same model class, wrapped the same way. */
+    static Object freshInstance(Object model) throws ReflectiveOperationException {
+        return instantiate(target(model).getClass());
+    }
+
+    static boolean isSymbolIndependent(Object model) {
+        Object target = target(model);
+        if (target instanceof SymbolIndependent) return true;
+        try {
+            Method m = target.getClass().getMethod("isSymbolIndependent");
+            return m.getReturnType() == boolean.class && (Boolean) m.invoke(target);
+        } catch (NoSuchMethodException e) {
+            return false;
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static Object target(Object model) {
+        return model instanceof ReflectiveBatchModel adapter ? adapter.target : model;
+    }
+
+    private static Method batchMethod(Class<?> clazz) {
+        try {
+            Method m = clazz.getMethod("simulateBatch", String[].class, String[].class, float[].class);
+            return m.getReturnType() == float[].class ? m : null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    static final class ReflectiveBatchModel implements BatchModel {
+        final Object target;
+        private final Method method;
+
+        ReflectiveBatchModel(Object target, Method method) {
+            this.target = target;
+            this.method = method;
+        }
+
+        @Override
+        public float[] simulateBatch(String[] symbols, String[] dates, float[] closes) {
+            try {
+                return (float[]) method.invoke(target, symbols, dates, closes);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw new RuntimeException(e.getCause());
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
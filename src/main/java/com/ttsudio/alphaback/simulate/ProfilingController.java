@@ -0,0 +1,116 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Admin endpoint for on-demand profiling: records for a bounded time with the JDK's default
+ * (low-overhead) settings plus the {@link SimulationEvents}, then returns the .jfr file. With a
+ * modelId only that model's simulation events are kept; JDK events (GC, CPU, locks) are always
+ * kept so the run can be read in context. Disabled by default; enable with
+ * {@code simulate.profiling.enabled=true} only where the port is not publicly reachable.
+ */
+@RestController
+public class ProfilingController {
+    static final int MAX_SECONDS = 300;
+
+    // one admin recording at a time keeps the overhead bounded
+    private final Semaphore recording = new Semaphore(1);
+
+    // unauthenticated, so off unless an operator turns it on for a trusted network
+    @Value("${simulate.profiling.enabled:false}")
+    boolean enabled;
+
+    @PostMapping(path = "/admin/recording", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> record(
+            @RequestParam(value = "seconds", defaultValue = "30") int seconds,
+            @RequestParam(value = "modelId", required = false) String modelId,
+            @RequestParam(value = "slowStepMs", defaultValue = "5") long slowStepMs) {
+        if (!enabled) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        if (seconds < 1 || seconds > MAX_SECONDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "seconds must be between 1 and " + MAX_SECONDS);
+        }
+        if (!recording.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A recording is already in progress");
+        }
+        try {
+            byte[] jfr = capture(Duration.ofSeconds(seconds), modelId, Duration.ofMillis(Math.max(0, slowStepMs)));
+            String fileName = "simulate-" + (modelId != null ? modelId.replaceAll("[^A-Za-z0-9._-]", "_") + "-" : "") + System.currentTimeMillis() + ".jfr";
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .body(jfr);
+        } finally {
+            recording.release();
+        }
+    }
+
+    byte[] capture(Duration duration, String modelId, Duration slowStepThreshold) {
+        Path raw = null;
+        Path filtered = null;
+        try {
+            raw = Files.createTempFile("simulate-", ".jfr");
+            try (Recording r = new Recording(Configuration.getConfiguration("default"))) {
+                r.setName("simulate-admin");
+                // environment, system properties and JVM arguments (-D...) may carry credentials
+                r.disable("jdk.InitialEnvironmentVariable");
+                r.disable("jdk.InitialSystemProperty");
+                r.disable("jdk.JVMInformation");
+                for (Class<? extends Event> type : SimulationEvents.TYPES) r.enable(type);
+                r.enable(SimulationEvents.SlowStep.class).withThreshold(slowStepThreshold);
+                r.start();
+                Thread.sleep(duration.toMillis());
+                r.stop();
+                r.dump(raw);
+            }
+            if (modelId == null || modelId.isEmpty()) return Files.readAllBytes(raw);
+
+            filtered = Files.createTempFile("simulate-", ".jfr");
+            try (RecordingFile file = new RecordingFile(raw)) {
+                file.write(filtered, e -> !isSimulationEvent(e) || modelId.equals(e.getString("modelId")));
+            }
+            return Files.readAllBytes(filtered);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while recording", e);
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException(e);
+        } finally {
+            delete(raw);
+            delete(filtered);
+        }
+    }
+
+    private static boolean isSimulationEvent(RecordedEvent e) {
+        return e.getEventType().getName().startsWith(SimulationEvents.PREFIX);
+    }
+
+    private static void delete(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignore) {
+            // temp directory cleanup will get it
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.ttsudio.alphaback.simulate;
+
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Readiness probe for load balancers. Returns 503 until startup, including the
+ * optional simulation warm-up, has completed.
+ */
+@RestController
+public class ReadinessController {
+    private final ApplicationAvailability availability;
+
+    public ReadinessController(ApplicationAvailability availability) {
+        this.availability = availability;
+    }
+
+    @GetMapping("/ready")
+    public ResponseEntity<String> ready() {
+        ReadinessState state = availability.getReadinessState();
+        HttpStatus status = state == ReadinessState.ACCEPTING_TRAFFIC ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(state.name());
+    }
+}
@@ -0,0 +1,77 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight guard: concurrent callers asking for the same key share one in-flight
+ * call instead of each invoking the loader. Nothing is cached once the call completes,
+ * so failures are handed to every waiter and the next caller retries.
+ */
+public class RequestCoalescer<K, V> {
+    private final String name;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalescedHits = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public RequestCoalescer(String name) {
+        this.name = name;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalescedHits.incrementAndGet();
+            return await(existing);
+        }
+
+        executions.incrementAndGet();
+        try {
+            V value = loader.get();
+            inFlight.remove(key, call);
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            failures.incrementAndGet();
+            inFlight.remove(key, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            // rethrow the leader's failure unchanged so waiters see the same error type
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new RuntimeException(cause);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("executions", executions.get());
+        stats.put("coalescedHits", coalescedHits.get());
+        stats.put("failures", failures.get());
+        stats.put("inFlight", (long) inFlight.size());
+        return stats;
+    }
+}
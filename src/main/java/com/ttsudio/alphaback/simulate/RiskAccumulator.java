@@ -0,0 +1,119 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Online risk statistics fed once per bar by the engine. Return mean/variance use Welford's
+ * update, drawdown tracks the running peak, and the equity curve is decimated by doubling its
+ * stride whenever it would exceed {@code maxPoints}, so each bar costs O(1) and the returned curve
+ * holds at most {@code maxPoints} samples plus the final bar.
+ */
+class RiskAccumulator implements BarListener {
+    private final int maxPoints;
+    private final double periodsPerYear;
+
+    private long bars;
+    private double prevEquity = Double.NaN;
+    private double peak = Double.NEGATIVE_INFINITY;
+    private double maxDrawdown;
+
+    private long returns;
+    private double meanReturn;
+    private double m2;
+    private double downsideSq;
+
+    private double equitySum;
+    private double exposureSum;
+    private double traded;
+
+    private int stride = 1;
+    private final List<SimulationResponse.EquityPoint> curve = new ArrayList<>();
+    private String lastDate;
+    private double lastEquity;
+
+    RiskAccumulator(int maxPoints, double periodsPerYear) {
+        this.maxPoints = maxPoints;
+        this.periodsPerYear = periodsPerYear;
+    }
+
+    @Override
+    public void onTrade(double notional) {
+        traded += notional;
+    }
+
+    @Override
+    public void onBar(String date, double cash, double holdings) {
+        double equity = cash + holdings;
+        bars++;
+        equitySum += equity;
+        if (equity > 0) exposureSum += holdings / equity;
+
+        if (equity > peak) peak = equity;
+        if (peak > 0) maxDrawdown = Math.max(maxDrawdown, (peak - equity) / peak);
+
+        if (!Double.isNaN(prevEquity) && prevEquity != 0) {
+            double r = equity / prevEquity - 1;
+            returns++;
+            double delta = r - meanReturn;
+            meanReturn += delta / returns;
+            m2 += delta * (r - meanReturn);
+            if (r < 0) downsideSq += r * r;
+        }
+        prevEquity = equity;
+
+        if (maxPoints > 0 && (bars - 1) % stride == 0) {
+            curve.add(new SimulationResponse.EquityPoint(date, equity));
+            if (curve.size() > maxPoints) {
+                // keep every other point and sample half as often from now on
+                int kept = 0;
+                for (int i = 0; i < curve.size(); i += 2) curve.set(kept++, curve.get(i));
+                curve.subList(kept, curve.size()).clear();
+                stride *= 2;
+            }
+        }
+        lastDate = date;
+        lastEquity = equity;
+    }
+
+    SimulationResponse.RiskMetrics result(Ledger ledger) {
+        SimulationResponse.RiskMetrics m = new SimulationResponse.RiskMetrics();
+        m.setBars(bars);
+        m.setMaxDrawdownPercentage(maxDrawdown * 100.0);
+
+        double std = returns > 1 ? Math.sqrt(m2 / (returns - 1)) : 0.0;
+        double annualize = Math.sqrt(periodsPerYear);
+        m.setVolatility(std * annualize);
+        m.setSharpe(std > 0 ? meanReturn / std * annualize : null);
+        double downside = returns > 0 ? Math.sqrt(downsideSq / returns) : 0.0;
+        m.setSortino(downside > 0 ? meanReturn / downside * annualize : null);
+
+        double avgEquity = bars > 0 ? equitySum / bars : 0.0;
+        m.setTurnover(avgEquity > 0 ? traded / avgEquity : 0.0);
+        m.setExposure(bars > 0 ? exposureSum / bars : 0.0);
+        m.setClosedTrades(ledger.closedTrades);
+        m.setWinRate(ledger.closedTrades > 0 ? (double) ledger.winningTrades / ledger.closedTrades : null);
+
+        if (maxPoints > 0 && lastDate != null) {
+            List<SimulationResponse.EquityPoint> points = new ArrayList<>(curve);
+            // always end the curve on the final bar
+            if (points.isEmpty() || !lastDate.equals(points.get(points.size() - 1).getDate())) {
+                points.add(new SimulationResponse.EquityPoint(lastDate, lastEquity));
+            }
+            m.setEquityCurve(points);
+        }
+        return m;
+    }
+
+    static double periodsPerYear(String timeStep) {
+        BarResampler.Resolution resolution = BarResampler.Resolution.of(timeStep);
+        if (resolution == null) return 252;
+        switch (resolution.unit()) {
+            case WEEKLY: return 52;
+            case MONTHLY: return 12;
+            // regular US session: 390 minutes per trading day
+            case MINUTE: return 252.0 * 390 / resolution.minutes();
+            default: return 252;
+        }
+    }
+}
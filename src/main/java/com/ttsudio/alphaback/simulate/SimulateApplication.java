@@ -6,11 +6,13 @@ import java.net.URLClassLoader;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -41,12 +43,100 @@ public class SimulateApplication {
     static final String GATHER_DATA_FUNCTION_NAME = "gatherData";
     static final String GET_MODEL_FUNCTION_NAME = "modelRegistryService";
     static final String SERVICE_CONSUMER_FUNCTION_NAME = "serviceConsumer";
+    static final double STARTING_CAPITAL = 10000.0;
+    // upper bound on bars x symbols handed to a BatchModel per call
+    static final int BATCH_WINDOW_CELLS = 1 << 20;
+    // bars per EngineBatch flight-recorder event on the stepwise path
+    static final int EVENT_BATCH_BARS = 250;
 
     Logger logger = LoggerFactory.getLogger(getClass());
-    LambdaClient lambdaClient = LambdaClient.create();
+    // created on first use so startup (and the warm-up) never pays for AWS SDK initialization
+    volatile LambdaClient lambdaClient;
+
+    // points the AWS client at a stand-in (e.g. the load-test harness) instead of the regional endpoint
+    @Value("${simulate.lambda.endpoint:}")
+    String lambdaEndpoint;
     private final ObjectMapper mapper = new ObjectMapper();
 
-    private static class TimeSeriesData {
+    // collapse concurrent identical upstream calls into one in-flight request
+    private final RequestCoalescer<String, JsonNode> modelBodyCalls = new RequestCoalescer<>("modelBody");
+    private final RequestCoalescer<String, File> classDownloads = new RequestCoalescer<>("classDownload");
+    private final RequestCoalescer<TimeSeriesKey, TimeSeriesData> timeSeriesCalls = new RequestCoalescer<>("timeSeries");
+
+    // heap set aside for simulations, shared between the bar cache and admitted runs
+    private long memoryBudgetBytes = Runtime.getRuntime().maxMemory() / 2;
+    // explicit bar cache cap; 0 means a quarter of memoryBudgetBytes
+    private long barCacheBytes;
+
+    // fetched per-symbol series; coarser timeSteps are resampled from these instead of refetched
+    private final BarCache barCache = new BarCache(1024, memoryBudgetBytes / 4, 15 * 60 * 1000L, 60 * 1000L);
+
+    // reserves each run's estimated heap footprint from what the bar cache may not use
+    private final AdmissionController admission = new AdmissionController(memoryBudgetBytes - barCache.getMaxBytes(), 30_000, 64);
+
+    // server-side ceiling on SimulationOptions.maxDecisions, which clients can set
+    @Value("${simulate.max-decisions:100000}")
+    int maxDecisionsLimit = 100_000;
+
+    // total for cache plus runs; defaults to half the max heap
+    @Value("${simulate.admission.budget-mb:0}")
+    void setAdmissionBudgetMb(long budgetMb) {
+        if (budgetMb > 0) memoryBudgetBytes = budgetMb * 1024 * 1024;
+        resizeMemory();
+    }
+
+    // defaults to a quarter of the simulation budget
+    @Value("${simulate.bar-cache.max-mb:0}")
+    void setBarCacheMaxMb(long maxMb) {
+        barCacheBytes = Math.max(0, maxMb) * 1024 * 1024;
+        resizeMemory();
+    }
+
+    @Value("${simulate.bar-cache.max-entries:1024}")
+    void setBarCacheMaxEntries(int maxEntries) {
+        barCache.setMaxEntries(maxEntries);
+    }
+
+    // daily and coarser series change once a day, so minutes of reuse are safe
+    @Value("${simulate.bar-cache.ttl-ms:900000}")
+    void setBarCacheTtlMs(long ttlMs) {
+        barCache.setTtlMs(ttlMs);
+    }
+
+    // intraday series gain a bar every interval; 0 turns off reuse of them entirely
+    @Value("${simulate.bar-cache.intraday-ttl-ms:60000}")
+    void setBarCacheIntradayTtlMs(long ttlMs) {
+        barCache.setIntradayTtlMs(ttlMs);
+    }
+
+    private synchronized void resizeMemory() {
+        long cache = barCacheBytes > 0 ? Math.min(barCacheBytes, memoryBudgetBytes) : memoryBudgetBytes / 4;
+        barCache.setMaxBytes(cache);
+        admission.setBudgetBytes(memoryBudgetBytes - cache);
+    }
+
+    @Value("${simulate.admission.max-wait-ms:30000}")
+    void setAdmissionMaxWaitMs(long maxWaitMs) {
+        admission.setMaxWaitMs(maxWaitMs);
+    }
+
+    @Value("${simulate.admission.max-queued:64}")
+    void setAdmissionMaxQueued(int maxQueued) {
+        admission.setMaxQueued(maxQueued);
+    }
+
+    private record TimeSeriesKey(String timeStep, List<String> symbols) {
+        static TimeSeriesKey of(String timeStep, List<String> requestedStocks) {
+            List<String> symbols = new ArrayList<>();
+            if (requestedStocks != null) {
+                for (String s : requestedStocks) symbols.add(s.trim());
+                Collections.sort(symbols);
+            }
+            return new TimeSeriesKey(timeStep, symbols);
+        }
+    }
+
+    static class TimeSeriesData {
         public final Map<String, JsonNode> tsMap;
 
         public TimeSeriesData(Map<String, JsonNode> tsMap) {
@@ -58,9 +148,29 @@ public class SimulateApplication {
         SpringApplication.run(SimulateApplication.class, args);
     }
 
+    LambdaClient lambdaClient() {
+        LambdaClient client = lambdaClient;
+        if (client == null) {
+            synchronized (this) {
+                client = lambdaClient;
+                if (client == null) {
+                    client = lambdaEndpoint == null || lambdaEndpoint.isEmpty()
+                            ? LambdaClient.create()
+                            : LambdaClient.builder().endpointOverride(java.net.URI.create(lambdaEndpoint)).build();
+                    lambdaClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
     private JsonNode fetchModelBody(String modelId) {
+        return modelBodyCalls.execute(modelId, () -> loadModelBody(modelId));
+    }
+
+    private JsonNode loadModelBody(String modelId) {
         try {
-            InvokeResponse getModelResponse = lambdaClient.invoke(
+            InvokeResponse getModelResponse = lambdaClient().invoke(
                     InvokeRequest.builder()
                             .functionName(GET_MODEL_FUNCTION_NAME)
                             .payload(SdkBytes.fromUtf8String(
@@ -100,11 +210,48 @@ public class SimulateApplication {
     }
 
     private TimeSeriesData fetchTimeSeries(String timeStep, List<String> requestedStocks) {
+        // resampling bases are fetched whole and cached, then served in upstream's default (compact) length
+        boolean full = BarCache.fetchesFull(timeStep);
+        if (requestedStocks == null || requestedStocks.isEmpty()) {
+            TimeSeriesData fetched = fetchTimeSeriesUncached(timeStep, requestedStocks, full);
+            Map<String, JsonNode> tsMap = new HashMap<>();
+            fetched.tsMap.forEach((symbol, ts) -> {
+                barCache.put(timeStep, symbol, ts, full);
+                tsMap.put(symbol, full ? BarCache.compact(ts) : ts);
+            });
+            return new TimeSeriesData(tsMap);
+        }
+
+        Map<String, JsonNode> tsMap = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String s : requestedStocks) {
+            String symbol = s.trim();
+            JsonNode ts = barCache.get(timeStep, symbol);
+            if (ts == null) ts = barCache.resampled(timeStep, symbol);
+            if (ts != null) tsMap.put(symbol, ts);
+            else missing.add(symbol);
+        }
+        if (!missing.isEmpty()) {
+            TimeSeriesData fetched = fetchTimeSeriesUncached(timeStep, missing, full);
+            for (Map.Entry<String, JsonNode> e : fetched.tsMap.entrySet()) {
+                barCache.put(timeStep, e.getKey(), e.getValue(), full);
+                tsMap.put(e.getKey(), full ? BarCache.compact(e.getValue()) : e.getValue());
+            }
+        }
+        return new TimeSeriesData(tsMap);
+    }
+
+    private TimeSeriesData fetchTimeSeriesUncached(String timeStep, List<String> requestedStocks, boolean full) {
+        return timeSeriesCalls.execute(TimeSeriesKey.of(timeStep, requestedStocks),
+                () -> loadTimeSeries(timeStep, requestedStocks, full));
+    }
+
+    private TimeSeriesData loadTimeSeries(String timeStep, List<String> requestedStocks, boolean full) {
         try {
             // discover active gather-data function via service consumer
             String serviceArn = null;
             try {
-                InvokeResponse svcResp = lambdaClient.invoke(
+                InvokeResponse svcResp = lambdaClient().invoke(
                         InvokeRequest.builder().functionName(SERVICE_CONSUMER_FUNCTION_NAME)
                                 .payload(SdkBytes.fromUtf8String("{}"))
                                 .build());
@@ -132,7 +279,15 @@ public class SimulateApplication {
             }
             // build payload using requestedStocks if provided (comma-separated string)
             com.fasterxml.jackson.databind.node.ObjectNode payloadNode = mapper.createObjectNode();
-            payloadNode.put("function", timeStep);
+            BarResampler.Resolution resolution = BarResampler.Resolution.of(timeStep);
+            if (resolution != null && resolution.unit() == BarResampler.Unit.MINUTE) {
+                // TIME_SERIES_INTRADAY_<n>MIN is our spelling; upstream takes the interval separately
+                payloadNode.put("function", "TIME_SERIES_INTRADAY");
+                payloadNode.put("interval", resolution.minutes() + "min");
+            } else {
+                payloadNode.put("function", timeStep);
+            }
+            if (full) payloadNode.put("outputsize", "full");
             if (requestedStocks != null && !requestedStocks.isEmpty()) {
                 String csv = requestedStocks.stream().map(String::trim).collect(java.util.stream.Collectors.joining(","));
                 // keep field name `symbol` for backward compatibility; value is comma-separated list
@@ -140,7 +295,7 @@ public class SimulateApplication {
             }
             String payloadStr = mapper.writeValueAsString(payloadNode);
 
-                InvokeResponse res = lambdaClient.invoke(
+                InvokeResponse res = lambdaClient().invoke(
                     InvokeRequest.builder()
                         .functionName(gatherFunctionToCall)
                         .payload(SdkBytes.fromUtf8String(payloadStr))
@@ -148,6 +303,17 @@ public class SimulateApplication {
             String payload = res.payload().asUtf8String();
             logger.info("Lambda response: " + payload);
 
+            return parseTimeSeries(payload, requestedStocks);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    TimeSeriesData parseTimeSeries(String payload, List<String> requestedStocks) {
+        SimulationEvents.Parse event = new SimulationEvents.Parse();
+        event.payloadBytes = payload.length();
+        event.begin();
+        try {
             JsonNode root = mapper.readTree(payload);
             JsonNode dataNode = root.has("data") ? root.get("data") : root;
 
@@ -175,167 +341,380 @@ public class SimulateApplication {
                 if (ts != null && ts.isObject()) tsMap.put(key, ts);
             }
 
+            event.symbols = tsMap.size();
+            event.commitTagged();
             return new TimeSeriesData(tsMap);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    public SimulationResponse simulate(List<String> stocks, String modelId, String timeStep) {
+        return simulate(stocks, modelId, timeStep, new SimulationOptions());
+    }
+
     @CrossOrigin
     @PostMapping(path = "/simulate", produces = MediaType.APPLICATION_JSON_VALUE)
     public SimulationResponse simulate(
             @RequestParam(value="stocks", defaultValue = "GOOGL, AAPL, NVDA") List<String> stocks,
             @RequestParam(value = "modelId", defaultValue = "726034f9-44c7-49df-9fac-1241da8ef221") String modelId,
-            @RequestParam(value = "timeStep", defaultValue = "TIME_SERIES_DAILY") String timeStep) {
+            @RequestParam(value = "timeStep", defaultValue = "TIME_SERIES_DAILY") String timeStep,
+            @ModelAttribute SimulationOptions options) {
+        if (options.getPeriodsPerYear() == null) options.setPeriodsPerYear(RiskAccumulator.periodsPerYear(timeStep));
+        if (options.getRequestId() == null || options.getRequestId().isBlank()) options.setRequestId(java.util.UUID.randomUUID().toString());
+
+        options.setMaxDecisions(Math.max(0, Math.min(options.getMaxDecisions(), maxDecisionsLimit)));
+        // record no more decisions than the reservation below pays for
+        options.setMaxDecisions(admission.decisionBudget(stocks, timeStep, options));
+
+        SimulationEvents.Tags previous = SimulationEvents.bind(new SimulationEvents.Tags(modelId, options.getRequestId()));
+        SimulationEvents.Simulation event = new SimulationEvents.Simulation();
+        event.timeStep = timeStep;
+        event.symbols = stocks == null ? 0 : stocks.size();
+        event.begin();
+        // reserve before fetching anything; released when the run completes or fails
+        try (AdmissionController.Reservation reservation = admission.acquire(admission.estimate(stocks, timeStep, options))) {
+            SimulationResponse resp = simulateAdmitted(stocks, modelId, timeStep, options);
+            resp.setRequestId(options.getRequestId());
+            event.succeeded = true;
+            return resp;
+        } finally {
+            event.commitTagged();
+            SimulationEvents.restore(previous);
+        }
+    }
+
+    private SimulationResponse simulateAdmitted(List<String> stocks, String modelId, String timeStep, SimulationOptions options) {
+                SimulationEvents.ModelFetch modelFetch = new SimulationEvents.ModelFetch();
+                modelFetch.begin();
                 JsonNode bodyJson = fetchModelBody(modelId);
+                modelFetch.commitTagged();
                 String downloadUrl = bodyJson.has("downloadUrl") ? bodyJson.get("downloadUrl").asText() : null;
                 String classPathRaw = bodyJson.has("classPath") ? bodyJson.get("classPath").asText() : "com/ttsudio/alphaback/ExampleModel";
                 logger.info("Model downloadUrl: " + downloadUrl + " classPath: " + classPathRaw);
 
         File modelDir = new File("models");
+        SimulationEvents.ClassLoad classLoad = new SimulationEvents.ClassLoad();
+        classLoad.className = classPathRaw;
+        classLoad.begin();
             // download class file if a presigned url is present
             if (downloadUrl != null && !downloadUrl.isEmpty()) {
+                // one directory per model, so models sharing a class name never load each other's bytes
+                modelDir = new File(modelDir, modelDirName(modelId));
                 // normalize class path to use slashes and append .class
                 String classPathSlashes = classPathRaw.replace('.', '/');
                 classPathSlashes = classPathSlashes.replace('\\', '/');
                 if (!classPathSlashes.endsWith(".class")) classPathSlashes = classPathSlashes + ".class";
 
                 File targetFile = new File(modelDir, classPathSlashes);
-                try {
-                    Files.createDirectories(targetFile.getParentFile().toPath());
-                    try (InputStream in = new java.net.URL(downloadUrl).openStream()) {
-                        Files.copy(in, targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                    }
-                    logger.info("Downloaded model class to: " + targetFile.getAbsolutePath());
-                } catch (Exception e) {
-                    throw new RuntimeException("Failed to download model class", e);
-                }
+                classDownloads.execute(targetFile.getAbsolutePath(), () -> downloadModelClass(downloadUrl, targetFile));
+                classLoad.downloaded = true;
             }
 
-            try (URLClassLoader loader = new URLClassLoader(new URL[] { modelDir.toURI().toURL() })) {
-                String className = classPathRaw.replace('/', '.').replace('\\', '.');
-                Class<?> clazz = loader.loadClass(className);
-            logger.info(clazz.getSimpleName());
-            if (!Model.class.isAssignableFrom(clazz)) {
-                throw new RuntimeException("invalid class");
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { modelDir.toURI().toURL() })) {
+            Object model = instantiateModel(loader, classPathRaw);
+            classLoad.commitTagged();
+
+            SimulationEvents.DataFetch dataFetch = new SimulationEvents.DataFetch();
+            dataFetch.begin();
+            TimeSeriesData tsData = fetchTimeSeries(timeStep, stocks);
+            long maxBars = 0;
+            for (JsonNode ts : tsData.tsMap.values()) {
+                maxBars = Math.max(maxBars, ts.size());
+                dataFetch.bars += ts.size();
             }
+            dataFetch.timeStep = timeStep;
+            dataFetch.symbols = tsData.tsMap.size();
+            dataFetch.commitTagged();
+            admission.observe(timeStep, maxBars);
+            return runSimulation(model, window(tsData.tsMap, options.getFrom(), options.getTo()), options);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
 
-            Model model = (Model) clazz.getDeclaredConstructor().newInstance();
+    }
 
-            TimeSeriesData tsData = fetchTimeSeries(timeStep, stocks);
-            Map<String, JsonNode> tsMap = tsData.tsMap;
+    // URL-encodes the id, '.' and '*' included, so distinct ids never share a directory and none is "." or ".."
+    static String modelDirName(String modelId) {
+        return java.net.URLEncoder.encode(modelId, java.nio.charset.StandardCharsets.UTF_8)
+                .replace(".", "%2E").replace("*", "%2A");
+    }
 
-            SimulationResponse simResp = new SimulationResponse();
-            double startingCapital = 10000.0;
-            double cash = startingCapital;
-            Map<String, Float> owned = new HashMap<>();
+    // returns a Model or a BatchModel; runSimulation picks the matching engine path
+    Object instantiateModel(ClassLoader loader, String classPathRaw) throws ReflectiveOperationException {
+        String className = classPathRaw.replace('/', '.').replace('\\', '.');
+        Class<?> clazz = loader.loadClass(className);
+        logger.info(clazz.getSimpleName());
+        return ModelContracts.instantiate(clazz);
+    }
 
-            // collect union of all dates from all time series
-            Set<String> dateSet = new HashSet<>();
-            for (JsonNode stockTs : tsMap.values()) {
-                stockTs.fieldNames().forEachRemaining(dateSet::add);
-            }
-            List<String> dates = new ArrayList<>(dateSet);
-            Collections.sort(dates);
+    // bar keys are ISO dates/timestamps, so lexical comparison orders them correctly
+    Map<String, JsonNode> window(Map<String, JsonNode> tsMap, String from, String to) {
+        if (from == null && to == null) return tsMap;
+        Map<String, JsonNode> windowed = new HashMap<>();
+        for (Map.Entry<String, JsonNode> e : tsMap.entrySet()) {
+            com.fasterxml.jackson.databind.node.ObjectNode bars = mapper.createObjectNode();
+            e.getValue().fields().forEachRemaining(bar -> {
+                if (from != null && bar.getKey().compareTo(from) < 0) return;
+                if (to != null && bar.getKey().compareTo(to) > 0) return;
+                bars.set(bar.getKey(), bar.getValue());
+            });
+            windowed.put(e.getKey(), bars);
+        }
+        return windowed;
+    }
+
+    SimulationResponse runSimulation(Object model, Map<String, JsonNode> tsMap) {
+        return runSimulation(model, tsMap, new SimulationOptions());
+    }
+
+    SimulationResponse runSimulation(Object model, Map<String, JsonNode> tsMap, SimulationOptions options) {
+        if (tsMap.size() > 1 && ModelContracts.isSymbolIndependent(model)) return SymbolShards.run(this, model, tsMap, options);
+
+        SimulationResponse simResp = new SimulationResponse();
+        Ledger ledger = new Ledger(STARTING_CAPITAL);
+        RiskAccumulator risk = riskAccumulator(options);
+        Map<String, Float> lastPriceMap = lastPrices(tsMap);
+        runEngine(model, tsMap, lastPriceMap, options, ledger, risk, simResp);
+        return finish(simResp, ledger, risk, lastPriceMap);
+    }
 
-            // prepare last price map for final valuation
-            Map<String, Float> lastPriceMap = new HashMap<>();
+    // drives one date loop over tsMap, trading through ledger and reporting fills and bars to the listener
+    void runEngine(Object model, Map<String, JsonNode> tsMap, Map<String, Float> lastPriceMap, SimulationOptions options,
+            Ledger ledger, BarListener risk, SimulationResponse simResp) {
+        if (model instanceof BatchModel batchModel) runBatched(batchModel, tsMap, lastPriceMap, options, ledger, risk, simResp);
+        else runStepwise((Model) model, tsMap, lastPriceMap, options, ledger, risk, simResp);
+    }
+
+    RiskAccumulator riskAccumulator(SimulationOptions options) {
+        double periodsPerYear = options.getPeriodsPerYear() != null ? options.getPeriodsPerYear() : 252;
+        return new RiskAccumulator(options.getEquityPoints(), periodsPerYear);
+    }
+
+    private void runStepwise(Model model, Map<String, JsonNode> tsMap, Map<String, Float> lastPriceMap, SimulationOptions options,
+            Ledger ledger, BarListener risk, SimulationResponse simResp) {
+        List<String> dates = unionDates(tsMap);
+        // latest close seen per stock, for marking positions to market on each bar
+        Map<String, Float> marks = new HashMap<>();
+        SimulationEvents.EngineBatch batch = null;
+
+        for (String date : dates) {
+            // build prices map for this date
+            Map<String, Float> pricesMap = new HashMap<>();
             for (Map.Entry<String, JsonNode> e : tsMap.entrySet()) {
-                List<String> sd = new ArrayList<>();
-                e.getValue().fieldNames().forEachRemaining(sd::add);
-                Collections.sort(sd);
-                if (!sd.isEmpty()) {
-                    JsonNode lastDay = e.getValue().get(sd.get(sd.size() - 1));
-                    if (lastDay != null) {
-                        String close = lastDay.has("4. close") ? lastDay.get("4. close").asText() : (lastDay.has("close") ? lastDay.get("close").asText() : null);
-                        if (close != null) lastPriceMap.put(e.getKey(), Float.parseFloat(close));
-                    }
+                String stock = e.getKey();
+                JsonNode stockTs = e.getValue();
+                if (stockTs.has(date)) {
+                    Float close = closeOf(stockTs.get(date));
+                    if (close != null) pricesMap.put(stock, close);
                 }
             }
 
-            for (String date : dates) {
-                // build prices map for this date
-                Map<String, Float> pricesMap = new HashMap<>();
-                for (Map.Entry<String, JsonNode> e : tsMap.entrySet()) {
-                    String stock = e.getKey();
-                    JsonNode stockTs = e.getValue();
-                    if (stockTs.has(date)) {
-                        JsonNode dayNode = stockTs.get(date);
-                        String closeStr = null;
-                        if (dayNode.has("4. close")) closeStr = dayNode.get("4. close").asText();
-                        else if (dayNode.has("close")) closeStr = dayNode.get("close").asText();
-                        if (closeStr != null) {
-                            try { pricesMap.put(stock, Float.parseFloat(closeStr)); } catch (NumberFormatException ignore) {}
-                        }
-                    }
-                }
+            if (pricesMap.isEmpty()) continue;
+            marks.putAll(pricesMap);
+            if (batch == null) {
+                batch = new SimulationEvents.EngineBatch();
+                batch.firstDate = date;
+                batch.begin();
+            }
 
-                if (pricesMap.isEmpty()) continue;
-
-                // create State (prices, owned)
-                State state = new State(pricesMap, new HashMap<>(owned));
-
-                // call model
-                List<?> decisions = model.simulateStep(state);
-                if (decisions != null) {
-                    for (Object ord : decisions) {
-                        try {
-                            Method mStock = ord.getClass().getMethod("stock");
-                            Method mAmount = ord.getClass().getMethod("amount");
-                            Method mIsBuy = ord.getClass().getMethod("isBuy");
-
-                            String stock = (String) mStock.invoke(ord);
-                            Float amount = (Float) mAmount.invoke(ord);
-                            Boolean isBuy = (Boolean) mIsBuy.invoke(ord);
-
-                            float price = pricesMap.getOrDefault(stock, lastPriceMap.getOrDefault(stock, 0f));
-
-                            // apply order
-                            if (Boolean.TRUE.equals(isBuy)) {
-                                double cost = amount * price;
-                                if (cash >= cost) {
-                                    cash -= cost;
-                                    owned.put(stock, owned.getOrDefault(stock, 0f) + amount);
-                                }
-                            } else {
-                                float have = owned.getOrDefault(stock, 0f);
-                                float toSell = Math.min(have, amount);
-                                cash += toSell * price;
-                                if (toSell >= have) owned.remove(stock);
-                                else owned.put(stock, have - toSell);
-                            }
-
-                            simResp.getDecisions().add(new SimulationResponse.Decision(date, stock, amount, isBuy));
-                        } catch (NoSuchMethodException nsme) {
-                            logger.warn("Unexpected order shape", nsme);
-                        } catch (Exception ex) {
-                            throw new RuntimeException(ex);
-                        }
+            // create State (prices, owned)
+            State state = new State(pricesMap, new HashMap<>(ledger.owned));
+
+            // call model
+            SimulationEvents.SlowStep step = new SimulationEvents.SlowStep();
+            step.begin();
+            List<?> decisions = model.simulateStep(state);
+            if (step.isEnabled()) {
+                step.date = date;
+                step.symbols = pricesMap.size();
+                step.orders = decisions == null ? 0 : decisions.size();
+            }
+            step.commitTagged();
+            batch.orders += decisions == null ? 0 : decisions.size();
+            if (decisions != null) {
+                for (Object ord : decisions) {
+                    try {
+                        Method mStock = ord.getClass().getMethod("stock");
+                        Method mAmount = ord.getClass().getMethod("amount");
+                        Method mIsBuy = ord.getClass().getMethod("isBuy");
+
+                        String stock = (String) mStock.invoke(ord);
+                        Float amount = (Float) mAmount.invoke(ord);
+                        Boolean isBuy = (Boolean) mIsBuy.invoke(ord);
+
+                        float price = pricesMap.getOrDefault(stock, lastPriceMap.getOrDefault(stock, 0f));
+                        risk.onTrade(ledger.apply(stock, amount, Boolean.TRUE.equals(isBuy), price));
+
+                        recordDecision(simResp, options, new SimulationResponse.Decision(date, stock, amount, isBuy));
+                    } catch (NoSuchMethodException nsme) {
+                        logger.warn("Unexpected order shape", nsme);
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex);
                     }
                 }
             }
+            risk.onBar(date, ledger.cash, ledger.holdingsValue(marks));
+            batch.lastDate = date;
+            if (++batch.bars == EVENT_BATCH_BARS) {
+                batch.commitTagged();
+                batch = null;
+            }
+        }
+        if (batch != null) batch.commitTagged();
+    }
+
+    /**
+     * Vectorized path for {@link BatchModel}s: closes are laid out once as a [date][symbol] float
+     * matrix and handed to the model a window at a time, so a long run costs a handful of calls.
+     */
+    private void runBatched(BatchModel model, Map<String, JsonNode> tsMap, Map<String, Float> lastPriceMap, SimulationOptions options,
+            Ledger ledger, BarListener risk, SimulationResponse simResp) {
+        Map<String, Float> marks = new HashMap<>();
+
+        String[] symbols = tsMap.keySet().toArray(new String[0]);
+        int width = symbols.length;
+        List<String> allDates = unionDates(tsMap);
+        String[] dates = new String[allDates.size()];
+        float[] closes = new float[allDates.size() * width];
+        int rows = 0;
+        for (String date : allDates) {
+            boolean any = false;
+            for (int s = 0; s < width; s++) {
+                JsonNode bar = tsMap.get(symbols[s]).get(date);
+                Float close = bar != null ? closeOf(bar) : null;
+                closes[rows * width + s] = close != null ? close : Float.NaN;
+                any |= close != null;
+            }
+            // same as the stepwise path: dates with no prices are not shown to the model
+            if (any) dates[rows++] = date;
+        }
 
-            // compute ending capital using last known prices per stock
-            double holdingsValue = 0.0;
-            for (Map.Entry<String, Float> e : owned.entrySet()) {
-                float lp = lastPriceMap.getOrDefault(e.getKey(), 0f);
-                holdingsValue += e.getValue() * lp;
+        int windowRows = Math.max(1, BATCH_WINDOW_CELLS / Math.max(1, width));
+        for (int start = 0; start < rows; start += windowRows) {
+            int end = Math.min(rows, start + windowRows);
+            SimulationEvents.EngineBatch batch = new SimulationEvents.EngineBatch();
+            batch.begin();
+            float[] orders = model.simulateBatch(symbols,
+                    java.util.Arrays.copyOfRange(dates, start, end),
+                    java.util.Arrays.copyOfRange(closes, start * width, end * width));
+            if (orders != null && orders.length != (end - start) * width) {
+                throw new RuntimeException("BatchModel returned " + orders.length + " orders for " + (end - start) + "x" + width + " bars");
+            }
+            for (int r = 0; r < end - start; r++) {
+                for (int s = 0; s < width; s++) {
+                    float close = closes[(start + r) * width + s];
+                    if (!Float.isNaN(close)) marks.put(symbols[s], close);
+                    float qty = orders != null ? orders[r * width + s] : 0f;
+                    if (qty == 0f || Float.isNaN(qty)) continue;
+                    float price = Float.isNaN(close) ? lastPriceMap.getOrDefault(symbols[s], 0f) : close;
+                    boolean isBuy = qty > 0;
+                    float amount = Math.abs(qty);
+                    risk.onTrade(ledger.apply(symbols[s], amount, isBuy, price));
+                    batch.orders++;
+                    recordDecision(simResp, options, new SimulationResponse.Decision(dates[start + r], symbols[s], amount, isBuy));
+                }
+                risk.onBar(dates[start + r], ledger.cash, ledger.holdingsValue(marks));
             }
+            batch.firstDate = dates[start];
+            batch.lastDate = dates[end - 1];
+            batch.bars = end - start;
+            batch.commitTagged();
+        }
+    }
+
+    private void recordDecision(SimulationResponse simResp, SimulationOptions options, SimulationResponse.Decision decision) {
+        if (!options.isIncludeDecisions()) return;
+        if (simResp.getDecisions().size() < options.getMaxDecisions()) simResp.getDecisions().add(decision);
+        else simResp.setDecisionsTruncated(true);
+    }
+
+    SimulationResponse finish(SimulationResponse simResp, Ledger ledger, RiskAccumulator risk, Map<String, Float> lastPriceMap) {
+        // compute ending capital using last known prices per stock
+        double endingCapital = ledger.cash + ledger.holdingsValue(lastPriceMap);
+        double gainPct = (endingCapital - ledger.startingCapital) / ledger.startingCapital * 100.0;
 
-            double endingCapital = cash + holdingsValue;
-            double gainPct = (endingCapital - startingCapital) / startingCapital * 100.0;
+        simResp.setStatus("OK");
+        simResp.setStartingCapital(ledger.startingCapital);
+        simResp.setEndingCapital(endingCapital);
+        simResp.setGainPercentage(gainPct);
+        simResp.setRisk(risk.result(ledger));
+
+        logger.info("Simulation finished: gain%=" + gainPct);
+        return simResp;
+    }
+
+    // collect union of all dates from all time series, oldest first
+    private List<String> unionDates(Map<String, JsonNode> tsMap) {
+        Set<String> dateSet = new HashSet<>();
+        for (JsonNode stockTs : tsMap.values()) {
+            stockTs.fieldNames().forEachRemaining(dateSet::add);
+        }
+        List<String> dates = new ArrayList<>(dateSet);
+        Collections.sort(dates);
+        return dates;
+    }
+
+    // last close per stock, used for final valuation and for orders on symbols without a bar that date
+    Map<String, Float> lastPrices(Map<String, JsonNode> tsMap) {
+        Map<String, Float> lastPriceMap = new HashMap<>();
+        for (Map.Entry<String, JsonNode> e : tsMap.entrySet()) {
+            List<String> sd = new ArrayList<>();
+            e.getValue().fieldNames().forEachRemaining(sd::add);
+            Collections.sort(sd);
+            if (!sd.isEmpty()) {
+                JsonNode lastDay = e.getValue().get(sd.get(sd.size() - 1));
+                if (lastDay != null) {
+                    String close = lastDay.has("4. close") ? lastDay.get("4. close").asText() : (lastDay.has("close") ? lastDay.get("close").asText() : null);
+                    if (close != null) lastPriceMap.put(e.getKey(), Float.parseFloat(close));
+                }
+            }
+        }
+        return lastPriceMap;
+    }
 
-            simResp.setStatus("OK");
-            simResp.setStartingCapital(startingCapital);
-            simResp.setEndingCapital(endingCapital);
-            simResp.setGainPercentage(gainPct);
+    private Float closeOf(JsonNode dayNode) {
+        String closeStr = null;
+        if (dayNode.has("4. close")) closeStr = dayNode.get("4. close").asText();
+        else if (dayNode.has("close")) closeStr = dayNode.get("close").asText();
+        if (closeStr == null) return null;
+        try {
+            return Float.parseFloat(closeStr);
+        } catch (NumberFormatException ignore) {
+            return null;
+        }
+    }
 
-            logger.info("Simulation finished: gain%=" + gainPct);
-            return simResp;
+    private File downloadModelClass(String downloadUrl, File targetFile) {
+        try {
+            Files.createDirectories(targetFile.getParentFile().toPath());
+            try (InputStream in = new java.net.URL(downloadUrl).openStream()) {
+                Files.copy(in, targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.info("Downloaded model class to: " + targetFile.getAbsolutePath());
+            return targetFile;
         } catch (Exception e) {
-            throw new RuntimeException(e);
+            throw new RuntimeException("Failed to download model class", e);
+        }
+    }
+
+    @GetMapping(path = "/metrics/coalescing", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Map<String, Long>> coalescingMetrics() {
+        Map<String, Map<String, Long>> metrics = new java.util.LinkedHashMap<>();
+        for (RequestCoalescer<?, ?> c : List.of(modelBodyCalls, classDownloads, timeSeriesCalls)) {
+            metrics.put(c.getName(), c.stats());
         }
+        return metrics;
+    }
+
+    @GetMapping(path = "/metrics/admission", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Long> admissionMetrics() {
+        return admission.stats();
+    }
 
+    @GetMapping(path = "/metrics/bar-cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Long> barCacheMetrics() {
+        return barCache.stats();
     }
 
     @GetMapping("/hello")
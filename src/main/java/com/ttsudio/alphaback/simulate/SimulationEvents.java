@@ -0,0 +1,158 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.util.List;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder events for each phase of a simulation. They cost next to nothing unless a
+ * recording has them enabled (see {@link ProfilingController}). Events pick up the modelId and
+ * request id of the simulation running on the current thread, so a recording can be narrowed to
+ * one customer's run.
+ */
+public final class SimulationEvents {
+    static final String PREFIX = "com.ttsudio.alphaback.simulate.";
+
+    static final List<Class<? extends Event>> TYPES = List.of(
+            Simulation.class, ModelFetch.class, ClassLoad.class, DataFetch.class, Parse.class, EngineBatch.class, SlowStep.class);
+
+    record Tags(String modelId, String requestId) {}
+
+    private static final Tags NONE = new Tags(null, null);
+    private static final ThreadLocal<Tags> CURRENT = new ThreadLocal<>();
+
+    private SimulationEvents() {}
+
+    static Tags current() {
+        Tags tags = CURRENT.get();
+        return tags != null ? tags : NONE;
+    }
+
+    /** Tags events on this thread until {@link #restore}; returns the previous tags. */
+    static Tags bind(Tags tags) {
+        Tags previous = CURRENT.get();
+        CURRENT.set(tags);
+        return previous;
+    }
+
+    static void restore(Tags previous) {
+        if (previous == null) CURRENT.remove();
+        else CURRENT.set(previous);
+    }
+
+    @Category({ "AlphaBack", "Simulation" })
+    @StackTrace(false)
+    abstract static class Phase extends Event {
+        @Label("Model Id")
+        String modelId;
+
+        @Label("Request Id")
+        String requestId;
+
+        /** Ends the event and, if the recording wants it, tags and commits it. */
+        final void commitTagged() {
+            end();
+            if (!shouldCommit()) return;
+            Tags tags = current();
+            modelId = tags.modelId();
+            requestId = tags.requestId();
+            commit();
+        }
+    }
+
+    @Name(PREFIX + "Simulation")
+    @Label("Simulation")
+    @Description("A whole /simulate request, from admission to response")
+    public static class Simulation extends Phase {
+        @Label("Time Step")
+        String timeStep;
+
+        @Label("Symbols")
+        int symbols;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name(PREFIX + "ModelFetch")
+    @Label("Model Fetch")
+    @Description("Model registry lookup for the model's class path and download URL")
+    public static class ModelFetch extends Phase {
+    }
+
+    @Name(PREFIX + "ClassLoad")
+    @Label("Model Class Load")
+    @Description("Downloading (when a URL is given), loading and instantiating the model class")
+    public static class ClassLoad extends Phase {
+        @Label("Class Name")
+        String className;
+
+        @Label("Downloaded")
+        boolean downloaded;
+    }
+
+    @Name(PREFIX + "DataFetch")
+    @Label("Data Fetch")
+    @Description("Time series lookup, including bar-cache hits, resampling and upstream calls")
+    public static class DataFetch extends Phase {
+        @Label("Time Step")
+        String timeStep;
+
+        @Label("Symbols")
+        int symbols;
+
+        @Label("Bars")
+        long bars;
+    }
+
+    @Name(PREFIX + "Parse")
+    @Label("Time Series Parse")
+    @Description("Parsing a gatherData payload into per-symbol series")
+    public static class Parse extends Phase {
+        @Label("Payload Size")
+        @DataAmount
+        long payloadBytes;
+
+        @Label("Symbols")
+        int symbols;
+    }
+
+    @Name(PREFIX + "EngineBatch")
+    @Label("Engine Batch")
+    @Description("A run of consecutive bars through the engine; one per BatchModel call on the batched path")
+    public static class EngineBatch extends Phase {
+        @Label("First Date")
+        String firstDate;
+
+        @Label("Last Date")
+        String lastDate;
+
+        @Label("Bars")
+        int bars;
+
+        @Label("Orders")
+        int orders;
+    }
+
+    @Name(PREFIX + "SlowStep")
+    @Label("Slow Model Step")
+    @Description("A single Model.simulateStep call that took longer than the threshold")
+    @Threshold("5 ms")
+    public static class SlowStep extends Phase {
+        @Label("Date")
+        String date;
+
+        @Label("Symbols")
+        int symbols;
+
+        @Label("Orders")
+        int orders;
+    }
+}
@@ -0,0 +1,32 @@
+package com.ttsudio.alphaback.simulate;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Optional /simulate query parameters; bound from the request alongside stocks/modelId/timeStep. */
+@Data
+@NoArgsConstructor
+public class SimulationOptions {
+    // inclusive bar-date bounds, either may be null
+    private String from;
+    private String to;
+    // clients that only need the analytics can skip the per-order list
+    private boolean includeDecisions = true;
+    // cap on recorded decisions; bounds the response size and the memory reserved for the run. Normally the
+    // earliest maxDecisions are kept; a symbol-sharded run (SymbolIndependent model) keeps each symbol's
+    // earliest ceil(maxDecisions / symbols) instead, so a symbol that trades often cannot crowd out the rest
+    private int maxDecisions = 100_000;
+    // maximum sampled points in the returned equity curve, which also always ends on the final bar; 0 disables it
+    private int equityPoints = 250;
+    // annualization factor for volatility/Sharpe/Sortino; derived from timeStep when not set
+    private Double periodsPerYear;
+    // caller's correlation id, echoed back and attached to profiling events; generated when absent
+    private String requestId;
+
+    public static SimulationOptions window(String from, String to) {
+        SimulationOptions options = new SimulationOptions();
+        options.setFrom(from);
+        options.setTo(to);
+        return options;
+    }
+}
@@ -10,10 +10,14 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class SimulationResponse {
     private String status;
+    private String requestId;
     private Double gainPercentage;
     private Double startingCapital;
     private Double endingCapital;
     private List<Decision> decisions = new ArrayList<>();
+    // set when more decisions were made than SimulationOptions.maxDecisions allowed recording
+    private boolean decisionsTruncated;
+    private RiskMetrics risk;
 
     @Data
     @NoArgsConstructor
@@ -30,4 +34,35 @@ public class SimulationResponse {
             this.isBuy = isBuy;
         }
     }
+
+    @Data
+    @NoArgsConstructor
+    public static class RiskMetrics {
+        private long bars;
+        private Double maxDrawdownPercentage;
+        // annualized, from per-bar equity returns
+        private Double volatility;
+        private Double sharpe;
+        private Double sortino;
+        // traded notional divided by average equity
+        private Double turnover;
+        // average share of equity held in positions
+        private Double exposure;
+        // share of closing sells that realized a profit
+        private Double winRate;
+        private long closedTrades;
+        private List<EquityPoint> equityCurve = new ArrayList<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class EquityPoint {
+        private String date;
+        private Double equity;
+
+        public EquityPoint(String date, Double equity) {
+            this.date = date;
+            this.equity = equity;
+        }
+    }
 }
@@ -0,0 +1,88 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs synthetic simulations against the bundled model and fixture data before the
+ * application reports itself ready, so the engine path is JIT-compiled (and, during a
+ * CDS training run, its classes are archived) before real traffic arrives.
+ * Runners execute before Spring publishes ReadinessState.ACCEPTING_TRAFFIC.
+ */
+@Component
+public class SimulationWarmup implements ApplicationRunner {
+    Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final SimulateApplication app;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${simulate.warmup.enabled:false}")
+    boolean enabled;
+
+    @Value("${simulate.warmup.iterations:50}")
+    int iterations;
+
+    @Value("${simulate.warmup.model-dir:models}")
+    String modelDir;
+
+    @Value("${simulate.warmup.model-class:com/ttsudio/alphaback/ExampleModel}")
+    String modelClass;
+
+    @Value("${simulate.warmup.fixture:gatherDataResponse.json}")
+    String fixture;
+
+    // used by the cdsArchive Gradle task: exit once warmed so the JVM dumps its class archive
+    @Value("${simulate.warmup.exit-on-complete:false}")
+    boolean exitOnComplete;
+
+    public SimulationWarmup(SimulateApplication app, ConfigurableApplicationContext context) {
+        this.app = app;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            long start = System.nanoTime();
+            try {
+                int runs = warmUp();
+                logger.info("Simulation warm-up finished: runs=" + runs + " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+            } catch (Exception e) {
+                // a failed warm-up only costs latency; never keep the instance out of rotation for it
+                logger.warn("Simulation warm-up failed; continuing without it", e);
+            }
+        }
+        if (exitOnComplete) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    int warmUp() throws Exception {
+        String payload;
+        try (InputStream in = new ClassPathResource(fixture).getInputStream()) {
+            payload = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        SimulateApplication.TimeSeriesData tsData = app.parseTimeSeries(payload, null);
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { new File(modelDir).toURI().toURL() })) {
+            for (int i = 0; i < iterations; i++) {
+                Object model = app.instantiateModel(loader, modelClass);
+                app.runSimulation(model, tsData.tsMap);
+            }
+        }
+        return iterations;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.util.Set;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+public class SweepController {
+    // the shard's simulation failed, as opposed to this worker being unhealthy (5xx)
+    static final int SHARD_FAILED_STATUS = 422;
+
+    private final SweepCoordinator coordinator;
+
+    public SweepController(SweepCoordinator coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    // coordinator and worker endpoints alike are hidden unless simulate.sweep.enabled=true
+    private void requireEnabled() {
+        if (!coordinator.enabled) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+    }
+
+    @PostMapping(path = "/sweep", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public SweepResult sweep(@RequestBody SweepRequest request) {
+        requireEnabled();
+        return coordinator.execute(request);
+    }
+
+    // worker side: run one shard dispatched by a coordinator
+    @PostMapping(path = "/sweep/shard", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SimulationResponse> shard(@RequestBody SweepShard shard) {
+        requireEnabled();
+        try {
+            return ResponseEntity.ok(coordinator.runShard(shard));
+        } catch (ResponseStatusException e) {
+            // admission rejections keep their status: 503 is requeued without penalty, 413 fails the shard
+            throw e;
+        } catch (RuntimeException e) {
+            SimulationResponse failed = new SimulationResponse();
+            failed.setStatus(e.getMessage());
+            return ResponseEntity.status(SHARD_FAILED_STATUS).body(failed);
+        }
+    }
+
+    @PostMapping("/sweep/workers")
+    public Set<String> registerWorker(@RequestParam("url") String url) {
+        requireEnabled();
+        try {
+            coordinator.registerWorker(url);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return coordinator.getWorkers();
+    }
+
+    @DeleteMapping("/sweep/workers")
+    public Set<String> unregisterWorker(@RequestParam("url") String url) {
+        requireEnabled();
+        coordinator.unregisterWorker(url);
+        return coordinator.getWorkers();
+    }
+
+    @GetMapping("/sweep/workers")
+    public Set<String> workers() {
+        requireEnabled();
+        return coordinator.getWorkers();
+    }
+}
@@ -0,0 +1,427 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Splits a sweep into shards (model x symbol set x window) and farms them out to registered
+ * worker instances of this service over HTTP. Workers pull shards from a shared queue, so fast
+ * nodes naturally take more work; once the queue drains, idle workers also re-run shards that
+ * have been in flight longer than {@code simulate.sweep.steal-after-ms} and the first result wins.
+ * Failed shards are re-queued for another worker up to {@code simulate.sweep.max-attempts}.
+ * Only transport failures (connection errors, timeouts, 5xx other than 503) count against a worker
+ * and can get it dropped; a shard whose simulation itself fails ({@link ShardFailedException}) only
+ * uses up its own attempts, and a worker at capacity ({@link WorkerBusyException}) hands the shard
+ * back without using either and backs off before pulling again.
+ *
+ * Workers re-register every third of {@code simulate.sweep.worker-ttl-ms}; one not heard from within
+ * that time is no longer handed shards.
+ *
+ * The sweep endpoints are unauthenticated, so the whole mode is off unless
+ * {@code simulate.sweep.enabled=true}, which belongs only on a trusted network. To try it locally,
+ * start a coordinator on 8080 and workers with
+ * {@code --server.port=8081 --simulate.sweep.coordinator-url=http://localhost:8080}, all with the
+ * mode enabled. With no workers registered the coordinator runs shards in-process.
+ */
+@Component
+public class SweepCoordinator {
+    static final String LOCAL_WORKER = "local";
+
+    Logger logger = LoggerFactory.getLogger(getClass());
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    // worker url -> when it last registered
+    private final Map<String, Long> workers = new ConcurrentHashMap<>();
+    private final SimulateApplication app;
+    // worker side: periodic re-registration with the coordinator
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sweep-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // unauthenticated, so off unless an operator turns it on for a trusted network
+    @Value("${simulate.sweep.enabled:false}")
+    boolean enabled;
+
+    @Value("${simulate.sweep.worker-ttl-ms:60000}")
+    long workerTtlMs = 60000;
+
+    @Value("${simulate.sweep.max-attempts:3}")
+    int maxAttempts = 3;
+
+    @Value("${simulate.sweep.max-worker-failures:3}")
+    int maxWorkerFailures = 3;
+
+    @Value("${simulate.sweep.steal-after-ms:30000}")
+    long stealAfterMs = 30000;
+
+    @Value("${simulate.sweep.shard-timeout-ms:300000}")
+    long shardTimeoutMs = 300000;
+
+    // first back-off after a busy answer; doubles with each one in a row up to BUSY_BACKOFF_MAX_MS
+    @Value("${simulate.sweep.busy-backoff-ms:100}")
+    long busyBackoffMs = 100;
+
+    static final long BUSY_BACKOFF_MAX_MS = 5000;
+
+    /** The shard's simulation failed (bad model, bad data); the worker that ran it is healthy. */
+    public static class ShardFailedException extends RuntimeException {
+        public ShardFailedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /** The worker is healthy but its admission queue is full (503); the shard should run elsewhere or later. */
+    public static class WorkerBusyException extends RuntimeException {
+        public WorkerBusyException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    // replaced in tests to dispatch without HTTP
+    BiFunction<String, SweepShard, SimulationResponse> dispatcher = this::dispatch;
+
+    public SweepCoordinator(SimulateApplication app) {
+        this.app = app;
+    }
+
+    public void registerWorker(String url) {
+        URI uri = URI.create(url);
+        if (!("http".equals(uri.getScheme()) || "https".equals(uri.getScheme())) || uri.getHost() == null) {
+            throw new IllegalArgumentException("worker url must be an absolute http(s) url: " + url);
+        }
+        String normalized = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        if (workers.put(normalized, System.currentTimeMillis()) == null) logger.info("Registered sweep worker: " + normalized);
+    }
+
+    public void unregisterWorker(String url) {
+        if (workers.remove(url) != null) logger.info("Unregistered sweep worker: " + url);
+    }
+
+    /** Workers that have registered within the last {@code simulate.sweep.worker-ttl-ms}. */
+    public Set<String> getWorkers() {
+        long cutoff = System.currentTimeMillis() - workerTtlMs;
+        workers.entrySet().removeIf(e -> {
+            if (e.getValue() >= cutoff) return false;
+            logger.info("Sweep worker expired: " + e.getKey());
+            return true;
+        });
+        return Collections.unmodifiableSet(new TreeSet<>(workers.keySet()));
+    }
+
+    List<SweepShard> partition(SweepRequest request) {
+        if (request.getModelIds() == null || request.getModelIds().isEmpty()) {
+            throw new IllegalArgumentException("sweep requires at least one modelId");
+        }
+        if (request.getSymbolSets() == null || request.getSymbolSets().isEmpty()) {
+            throw new IllegalArgumentException("sweep requires at least one symbol set");
+        }
+        List<SweepRequest.Window> windows = request.getWindows() == null || request.getWindows().isEmpty()
+                ? List.of(new SweepRequest.Window(null, null))
+                : request.getWindows();
+
+        List<SweepShard> shards = new ArrayList<>();
+        for (String modelId : request.getModelIds()) {
+            for (List<String> symbols : request.getSymbolSets()) {
+                for (SweepRequest.Window w : windows) {
+                    shards.add(new SweepShard(shards.size(), modelId, symbols, request.getTimeStep(), w.getFrom(), w.getTo()));
+                }
+            }
+        }
+        return shards;
+    }
+
+    public SweepResult execute(SweepRequest request) {
+        long start = System.currentTimeMillis();
+        List<SweepShard> shards = partition(request);
+        Set<String> live = getWorkers();
+        List<String> pool = live.isEmpty() ? List.of(LOCAL_WORKER) : new ArrayList<>(live);
+        logger.info("Starting sweep: shards=" + shards.size() + " workers=" + pool.size());
+
+        SweepRun run = new SweepRun(shards);
+        ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<?>> loops = new ArrayList<>();
+        for (String worker : pool) {
+            loops.add(exec.submit(() -> workLoop(run, worker, pool.size())));
+        }
+        while (!run.isComplete() && !loops.stream().allMatch(Future::isDone)) {
+            pause();
+        }
+        // abandon duplicates of shards that another worker already finished
+        exec.shutdownNow();
+
+        SweepResult result = new SweepResult();
+        int failed = 0;
+        for (SweepShard shard : shards) {
+            SweepResult.ShardResult r = run.done.get(shard.getShardId());
+            if (r == null) {
+                // every worker dropped out before this shard could be placed
+                r = shardResult(shard, null, run.attempts(shard).get(), false, null, "no live workers");
+            }
+            if (r.getError() != null) failed++;
+            result.getShards().add(r);
+        }
+        result.setTotalShards(shards.size());
+        result.setFailedShards(failed);
+        result.setStatus(failed == 0 ? "OK" : (failed == shards.size() ? "FAILED" : "PARTIAL"));
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        logger.info("Sweep finished: shards=" + shards.size() + " failed=" + failed + " in " + result.getElapsedMs() + "ms");
+        return result;
+    }
+
+    private void workLoop(SweepRun run, String worker, int poolSize) {
+        int consecutiveFailures = 0;
+        int consecutiveBusy = 0;
+        while (!run.isComplete()) {
+            SweepShard shard = run.pending.pollFirst();
+            boolean stolen = false;
+            if (shard == null) {
+                shard = run.stealCandidate(stealAfterMs);
+                if (shard == null) {
+                    pause();
+                    continue;
+                }
+                stolen = true;
+            } else if (run.failedOn(shard).contains(worker) && run.failedOn(shard).size() < run.liveWorkers(poolSize)) {
+                // give the shard to a worker it has not failed on yet
+                run.pending.addLast(shard);
+                pause();
+                continue;
+            }
+            int id = shard.getShardId();
+            if (run.done.containsKey(id)) continue;
+
+            int attempt = run.attempts(shard).incrementAndGet();
+            run.runningSince.putIfAbsent(id, System.currentTimeMillis());
+            try {
+                SimulationResponse response = dispatcher.apply(worker, shard);
+                run.complete(shardResult(shard, worker, attempt, stolen, response, null));
+                consecutiveFailures = 0;
+                consecutiveBusy = 0;
+            } catch (WorkerBusyException e) {
+                logger.info("Worker " + worker + " is busy; requeueing shard " + id);
+                // not this shard's fault nor a sign the worker is down: refund the attempt and back off
+                run.attempts(shard).decrementAndGet();
+                if (stolen) {
+                    run.stolen.remove(id);
+                } else {
+                    run.runningSince.remove(id);
+                    run.pending.addLast(shard);
+                }
+                pause(Math.min(BUSY_BACKOFF_MAX_MS, busyBackoffMs << Math.min(consecutiveBusy++, 16)));
+            } catch (RuntimeException e) {
+                logger.warn("Shard " + id + " failed on " + worker + " (attempt " + attempt + ")", e);
+                // the worker answered, so it is still healthy
+                if (e instanceof ShardFailedException) consecutiveFailures = 0;
+                else consecutiveFailures++;
+                run.failedOn(shard).add(worker);
+                if (!stolen) {
+                    if (attempt >= maxAttempts) {
+                        run.complete(shardResult(shard, worker, attempt, false, null, e.getMessage()));
+                    } else {
+                        run.runningSince.remove(id);
+                        run.pending.addLast(shard);
+                    }
+                }
+                if (consecutiveFailures >= maxWorkerFailures) {
+                    logger.warn("Dropping worker " + worker + " from sweep after " + consecutiveFailures + " consecutive failures");
+                    run.deadWorkers.add(worker);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void pause() {
+        pause(20);
+    }
+
+    private void pause(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private SweepResult.ShardResult shardResult(SweepShard shard, String worker, int attempts, boolean stolen,
+            SimulationResponse response, String error) {
+        SweepResult.ShardResult r = new SweepResult.ShardResult();
+        r.setShard(shard);
+        r.setWorker(worker);
+        r.setAttempts(attempts);
+        r.setStolen(stolen);
+        r.setResponse(response);
+        r.setError(error);
+        return r;
+    }
+
+    SimulationResponse dispatch(String worker, SweepShard shard) {
+        if (LOCAL_WORKER.equals(worker)) {
+            try {
+                return runShard(shard);
+            } catch (ResponseStatusException e) {
+                if (e.getStatusCode().value() == 503) throw new WorkerBusyException(e.getReason(), e);
+                throw new ShardFailedException(e.getReason(), e);
+            } catch (RuntimeException e) {
+                throw new ShardFailedException(e.getMessage(), e);
+            }
+        }
+        try {
+            HttpRequest req = HttpRequest.newBuilder(URI.create(worker + "/sweep/shard"))
+                    .timeout(Duration.ofMillis(shardTimeoutMs))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(shard)))
+                    .build();
+            HttpResponse<String> res = httpClient.send(req, HttpResponse.BodyHandlers.ofString());
+            if (res.statusCode() == 503) {
+                throw new WorkerBusyException("Worker " + worker + " is at capacity", null);
+            }
+            if (res.statusCode() == SweepController.SHARD_FAILED_STATUS) {
+                throw new ShardFailedException(mapper.readValue(res.body(), SimulationResponse.class).getStatus(), null);
+            }
+            if (res.statusCode() >= 400 && res.statusCode() < 500) {
+                throw new ShardFailedException("Worker " + worker + " rejected shard with HTTP " + res.statusCode(), null);
+            }
+            if (res.statusCode() != 200) {
+                throw new RuntimeException("Worker " + worker + " returned HTTP " + res.statusCode());
+            }
+            return mapper.readValue(res.body(), SimulationResponse.class);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to dispatch shard to " + worker, e);
+        }
+    }
+
+    public SimulationResponse runShard(SweepShard shard) {
+        return app.simulate(shard.getSymbols(), shard.getModelId(), shard.getTimeStep(),
+                SimulationOptions.window(shard.getFrom(), shard.getTo()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerWithCoordinator(ApplicationReadyEvent event) {
+        Environment env = event.getApplicationContext().getEnvironment();
+        String coordinator = env.getProperty("simulate.sweep.coordinator-url");
+        if (!enabled || coordinator == null || coordinator.isEmpty()) return;
+        String self = env.getProperty("simulate.sweep.advertised-url",
+                "http://localhost:" + env.getProperty("local.server.port", "8080"));
+        // re-register well inside the coordinator's TTL so one lost heartbeat does not expire us
+        long period = Math.max(1000, workerTtlMs / 3);
+        heartbeat.scheduleAtFixedRate(() -> registerWith(coordinator, self), 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopHeartbeat() {
+        heartbeat.shutdownNow();
+    }
+
+    boolean registerWith(String coordinator, String self) {
+        try {
+            HttpRequest req = HttpRequest.newBuilder(URI.create(coordinator + "/sweep/workers?url=" + java.net.URLEncoder.encode(self, java.nio.charset.StandardCharsets.UTF_8)))
+                    .timeout(Duration.ofSeconds(10))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            HttpResponse<String> res = httpClient.send(req, HttpResponse.BodyHandlers.ofString());
+            logger.debug("Registered with sweep coordinator " + coordinator + " as " + self + ": HTTP " + res.statusCode());
+            return res.statusCode() == 200;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            logger.warn("Failed to register with sweep coordinator " + coordinator, e);
+            return false;
+        }
+    }
+
+    private static class SweepRun {
+        final Map<Integer, SweepShard> shardsById = new ConcurrentHashMap<>();
+        final Deque<SweepShard> pending = new ConcurrentLinkedDeque<>();
+        final Map<Integer, SweepResult.ShardResult> done = new ConcurrentHashMap<>();
+        final Map<Integer, Long> runningSince = new ConcurrentHashMap<>();
+        final Set<Integer> stolen = ConcurrentHashMap.newKeySet();
+        final Set<String> deadWorkers = ConcurrentHashMap.newKeySet();
+        private final Map<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        private final Map<Integer, Set<String>> failedOn = new ConcurrentHashMap<>();
+
+        SweepRun(List<SweepShard> shards) {
+            for (SweepShard s : shards) {
+                shardsById.put(s.getShardId(), s);
+                pending.addLast(s);
+            }
+        }
+
+        AtomicInteger attempts(SweepShard shard) {
+            return attempts.computeIfAbsent(shard.getShardId(), k -> new AtomicInteger());
+        }
+
+        Set<String> failedOn(SweepShard shard) {
+            return failedOn.computeIfAbsent(shard.getShardId(), k -> ConcurrentHashMap.newKeySet());
+        }
+
+        int liveWorkers(int poolSize) {
+            return poolSize - deadWorkers.size();
+        }
+
+        boolean isComplete() {
+            return done.size() == shardsById.size();
+        }
+
+        // first result for a shard wins; a slower duplicate is discarded
+        void complete(SweepResult.ShardResult result) {
+            int id = result.getShard().getShardId();
+            done.putIfAbsent(id, result);
+            runningSince.remove(id);
+        }
+
+        SweepShard stealCandidate(long stealAfterMs) {
+            long now = System.currentTimeMillis();
+            return runningSince.entrySet().stream()
+                    .filter(e -> now - e.getValue() >= stealAfterMs)
+                    .filter(e -> !done.containsKey(e.getKey()) && !stolen.contains(e.getKey()))
+                    .sorted(Map.Entry.comparingByValue())
+                    .map(e -> e.getKey())
+                    .filter(stolen::add)
+                    .findFirst()
+                    .map(shardsById::get)
+                    .orElse(null);
+        }
+    }
+}
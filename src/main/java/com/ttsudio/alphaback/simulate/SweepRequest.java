@@ -0,0 +1,29 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class SweepRequest {
+    private List<String> modelIds = new ArrayList<>();
+    private List<List<String>> symbolSets = new ArrayList<>();
+    private String timeStep = "TIME_SERIES_DAILY";
+    // empty means a single shard over the whole series
+    private List<Window> windows = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    public static class Window {
+        private String from;
+        private String to;
+
+        public Window(String from, String to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class SweepResult {
+    private String status;
+    private int totalShards;
+    private int failedShards;
+    private long elapsedMs;
+    private List<ShardResult> shards = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    public static class ShardResult {
+        private SweepShard shard;
+        private String worker;
+        private int attempts;
+        private boolean stolen;
+        private String error;
+        private SimulationResponse response;
+    }
+}
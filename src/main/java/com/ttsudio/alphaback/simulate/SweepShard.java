@@ -0,0 +1,27 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One unit of sweep work: a model run over a symbol set within an optional date window. */
+@Data
+@NoArgsConstructor
+public class SweepShard {
+    private int shardId;
+    private String modelId;
+    private List<String> symbols;
+    private String timeStep;
+    private String from;
+    private String to;
+
+    public SweepShard(int shardId, String modelId, List<String> symbols, String timeStep, String from, String to) {
+        this.shardId = shardId;
+        this.modelId = modelId;
+        this.symbols = symbols;
+        this.timeStep = timeStep;
+        this.from = from;
+        this.to = to;
+    }
+}
@@ -0,0 +1,13 @@
+package com.ttsudio.alphaback.simulate;
+
+/**
+ * Marker for a {@link com.ttsudio.alphaback.Model} or {@link BatchModel} that trades each symbol
+ * on its own: its orders for one symbol never depend on another symbol's prices or positions.
+ * Such models get an equal share of the starting capital per symbol, and the engine runs each
+ * symbol with a fresh instance (created through the public no-arg constructor) and its own
+ * ledger, spread across the fork-join pool. Results do not depend on how symbols are sharded.
+ * Models built against the published alphaback-model artifact cannot implement this interface;
+ * declaring {@code public boolean isSymbolIndependent()} returning true has the same effect.
+ */
+public interface SymbolIndependent {
+}
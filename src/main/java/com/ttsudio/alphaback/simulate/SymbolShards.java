@@ -0,0 +1,181 @@
+package com.ttsudio.alphaback.simulate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.BeanUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Parallel engine for {@link SymbolIndependent} models. The universe is split into symbol shards
+ * that run on a dedicated fork-join pool sized to the machine, so long CPU-bound runs never tie
+ * up the common pool; within a shard each symbol gets its own model instance
+ * and a ledger funded with an equal share of the starting capital. Each symbol's per-bar cash and
+ * holdings are kept, and at the end they are summed date by date into one portfolio curve that
+ * feeds the usual risk statistics. Decisions are merged in date order; each symbol records at
+ * most its earliest ceil({@code maxDecisions} / symbols), so the run never holds much more than the
+ * cap. When capped, the result is therefore each symbol's earliest share rather than the run's
+ * earliest {@code maxDecisions} overall.
+ */
+final class SymbolShards {
+    // more shards than workers so one slow symbol does not leave the other cores idle
+    static final int SHARDS_PER_WORKER = 4;
+
+    static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        t.setName("symbol-shard-" + t.getPoolIndex());
+        return t;
+    }, null, false);
+
+    private SymbolShards() {}
+
+    static SimulationResponse run(SimulateApplication app, Object prototype, Map<String, JsonNode> tsMap, SimulationOptions options) {
+        List<String> symbols = new ArrayList<>(tsMap.keySet());
+        Collections.sort(symbols);
+        double allocation = SimulateApplication.STARTING_CAPITAL / symbols.size();
+        Map<String, Float> lastPriceMap = app.lastPrices(tsMap);
+        SimulationEvents.Tags tags = SimulationEvents.current();
+        SimulationOptions symbolOptions = new SimulationOptions();
+        BeanUtils.copyProperties(options, symbolOptions);
+        symbolOptions.setMaxDecisions((int) Math.max(1, ((long) options.getMaxDecisions() + symbols.size() - 1) / symbols.size()));
+
+        int shardCount = Math.min(symbols.size(), POOL.getParallelism() * SHARDS_PER_WORKER);
+        List<Callable<List<SymbolRun>>> shards = new ArrayList<>();
+        for (int s = 0; s < shardCount; s++) {
+            List<String> shard = new ArrayList<>();
+            for (int i = s; i < symbols.size(); i += shardCount) shard.add(symbols.get(i));
+            shards.add(() -> runShard(app, prototype, shard, tsMap, lastPriceMap, symbolOptions, allocation, tags));
+        }
+
+        List<SymbolRun> runs = new ArrayList<>();
+        try {
+            for (Future<List<SymbolRun>> f : POOL.invokeAll(shards)) runs.addAll(f.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new RuntimeException(e.getCause());
+        }
+        // symbol order, so same-date decisions come out the same however the shards were cut
+        runs.sort(Comparator.comparing((SymbolRun r) -> r.symbol));
+        return merge(app, runs, options, lastPriceMap);
+    }
+
+    private static List<SymbolRun> runShard(SimulateApplication app, Object prototype, List<String> shard,
+            Map<String, JsonNode> tsMap, Map<String, Float> lastPriceMap, SimulationOptions options,
+            double allocation, SimulationEvents.Tags tags) throws ReflectiveOperationException {
+        SimulationEvents.Tags previous = SimulationEvents.bind(tags);
+        try {
+            List<SymbolRun> runs = new ArrayList<>();
+            for (String symbol : shard) {
+                SymbolRun run = new SymbolRun(symbol, allocation);
+                Object model = ModelContracts.freshInstance(prototype);
+                app.runEngine(model, Map.of(symbol, tsMap.get(symbol)), lastPriceMap, options, run.ledger, run, run.response);
+                runs.add(run);
+            }
+            return runs;
+        } finally {
+            SimulationEvents.restore(previous);
+        }
+    }
+
+    private static SimulationResponse merge(SimulateApplication app, List<SymbolRun> runs, SimulationOptions options,
+            Map<String, Float> lastPriceMap) {
+        // k-way merge of the per-symbol bar dates; a symbol with no bar yet holds its allocation in cash
+        RiskAccumulator risk = app.riskAccumulator(options);
+        int[] cursor = new int[runs.size()];
+        while (true) {
+            String date = null;
+            for (int r = 0; r < runs.size(); r++) {
+                SymbolRun run = runs.get(r);
+                if (cursor[r] < run.bars && (date == null || run.dates[cursor[r]].compareTo(date) < 0)) date = run.dates[cursor[r]];
+            }
+            if (date == null) break;
+
+            double cash = 0;
+            double holdings = 0;
+            for (int r = 0; r < runs.size(); r++) {
+                SymbolRun run = runs.get(r);
+                while (cursor[r] < run.bars && run.dates[cursor[r]].compareTo(date) <= 0) cursor[r]++;
+                if (cursor[r] == 0) {
+                    cash += run.ledger.startingCapital;
+                } else {
+                    cash += run.cash[cursor[r] - 1];
+                    holdings += run.holdings[cursor[r] - 1];
+                }
+            }
+            risk.onBar(date, cash, holdings);
+        }
+
+        Ledger ledger = new Ledger(SimulateApplication.STARTING_CAPITAL);
+        ledger.cash = 0;
+        List<SimulationResponse.Decision> decisions = new ArrayList<>();
+        boolean truncated = false;
+        for (SymbolRun run : runs) {
+            ledger.cash += run.ledger.cash;
+            ledger.owned.putAll(run.ledger.owned);
+            ledger.closedTrades += run.ledger.closedTrades;
+            ledger.winningTrades += run.ledger.winningTrades;
+            risk.onTrade(run.traded);
+            decisions.addAll(run.response.getDecisions());
+            truncated |= run.response.isDecisionsTruncated();
+        }
+        // stable, so same-date decisions stay in symbol order
+        decisions.sort(Comparator.comparing(SimulationResponse.Decision::getDate));
+        if (decisions.size() > options.getMaxDecisions()) {
+            decisions = new ArrayList<>(decisions.subList(0, options.getMaxDecisions()));
+            truncated = true;
+        }
+
+        SimulationResponse simResp = new SimulationResponse();
+        simResp.setDecisions(decisions);
+        simResp.setDecisionsTruncated(truncated);
+        return app.finish(simResp, ledger, risk, lastPriceMap);
+    }
+
+    /** One symbol's run: its ledger and decisions, plus the per-bar cash and holdings the engine reports. */
+    private static final class SymbolRun implements BarListener {
+        final String symbol;
+        final Ledger ledger;
+        final SimulationResponse response = new SimulationResponse();
+        String[] dates = new String[256];
+        double[] cash = new double[256];
+        double[] holdings = new double[256];
+        int bars;
+        double traded;
+
+        SymbolRun(String symbol, double allocation) {
+            this.symbol = symbol;
+            this.ledger = new Ledger(allocation);
+        }
+
+        @Override
+        public void onTrade(double notional) {
+            traded += notional;
+        }
+
+        @Override
+        public void onBar(String date, double cash, double holdings) {
+            if (bars == dates.length) {
+                dates = Arrays.copyOf(dates, bars * 2);
+                this.cash = Arrays.copyOf(this.cash, bars * 2);
+                this.holdings = Arrays.copyOf(this.holdings, bars * 2);
+            }
+            dates[bars] = date;
+            this.cash[bars] = cash;
+            this.holdings[bars] = holdings;
+            bars++;
+        }
+    }
+}
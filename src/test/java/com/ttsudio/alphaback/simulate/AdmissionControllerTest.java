@@ -0,0 +1,101 @@
+package com.ttsudio.alphaback.simulate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class AdmissionControllerTest {
+
+    @Test
+    public void releasingAReservationFreesTheBudget() {
+        AdmissionController admission = new AdmissionController(100, 1000, 4);
+
+        try (AdmissionController.Reservation r = admission.acquire(60)) {
+            assertEquals(60L, admission.stats().get("reservedBytes"));
+        }
+        try (AdmissionController.Reservation r = admission.acquire(100)) {
+            assertEquals(100L, admission.stats().get("reservedBytes"));
+        }
+        assertEquals(0L, admission.stats().get("reservedBytes"));
+        assertEquals(2L, admission.stats().get("admitted"));
+    }
+
+    @Test
+    public void oversizedRequestIsRejectedUpFront() {
+        AdmissionController admission = new AdmissionController(100, 1000, 4);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> admission.acquire(101));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatusCode());
+    }
+
+    @Test
+    public void waiterIsAdmittedOnReleaseOrTimesOut() throws Exception {
+        AdmissionController admission = new AdmissionController(100, 2000, 4);
+        AdmissionController.Reservation held = admission.acquire(80);
+
+        CompletableFuture<AdmissionController.Reservation> waiter = CompletableFuture.supplyAsync(() -> admission.acquire(50));
+        while (admission.stats().get("waiting") == 0) Thread.sleep(5);
+        held.close();
+        try (AdmissionController.Reservation r = waiter.get(2, TimeUnit.SECONDS)) {
+            assertEquals(50, r.bytes());
+        }
+
+        admission.setMaxWaitMs(50);
+        try (AdmissionController.Reservation r = admission.acquire(80)) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> admission.acquire(50));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        }
+        assertEquals(0L, admission.stats().get("waiting"));
+    }
+
+    @Test
+    public void fullQueueIsRejected() {
+        AdmissionController admission = new AdmissionController(100, 1000, 0);
+        try (AdmissionController.Reservation r = admission.acquire(100)) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> admission.acquire(1));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        }
+    }
+
+    @Test
+    public void estimateScalesWithSymbolsAndObservedBars() {
+        AdmissionController admission = new AdmissionController(Long.MAX_VALUE, 1000, 4);
+        SimulationOptions options = new SimulationOptions();
+
+        long one = admission.estimate(List.of("IBM"), "TIME_SERIES_DAILY", options);
+        long ten = admission.estimate(List.of("A", "B", "C", "D", "E", "F", "G", "H", "I", "J"), "TIME_SERIES_DAILY", options);
+        assertTrue(ten > 9 * (one - AdmissionController.BASE_BYTES));
+
+        options.setIncludeDecisions(false);
+        assertTrue(admission.estimate(List.of("IBM"), "TIME_SERIES_DAILY", options) < one);
+
+        admission.observe("TIME_SERIES_DAILY", 100);
+        assertEquals(100, admission.expectedBars("TIME_SERIES_DAILY"));
+        assertEquals(AdmissionController.BASE_BYTES + 100 * AdmissionController.BYTES_PER_BAR,
+                admission.estimate(List.of("IBM"), "TIME_SERIES_DAILY", options));
+    }
+
+    @Test
+    public void decisionBudgetNeverExceedsWhatIsReserved() {
+        AdmissionController admission = new AdmissionController(Long.MAX_VALUE, 1000, 4);
+        admission.observe("TIME_SERIES_DAILY", 100);
+        SimulationOptions options = new SimulationOptions();
+        options.setMaxDecisions(Integer.MAX_VALUE);
+
+        assertEquals(200, admission.decisionBudget(List.of("IBM", "AAPL"), "TIME_SERIES_DAILY", options));
+        assertEquals(AdmissionController.BASE_BYTES + 200 * (AdmissionController.BYTES_PER_BAR + AdmissionController.BYTES_PER_DECISION),
+                admission.estimate(List.of("IBM", "AAPL"), "TIME_SERIES_DAILY", options));
+
+        options.setMaxDecisions(50);
+        assertEquals(50, admission.decisionBudget(List.of("IBM", "AAPL"), "TIME_SERIES_DAILY", options));
+    }
+}
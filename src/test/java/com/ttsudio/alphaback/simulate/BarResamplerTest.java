@@ -0,0 +1,154 @@
+package com.ttsudio.alphaback.simulate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class BarResamplerTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private JsonNode daily() throws Exception {
+        return mapper.readTree("""
+                {
+                  "2025-11-28": {"1. open": "304.0600", "2. high": "309.1800", "3. low": "303.6000", "4. close": "308.5800", "5. volume": "100"},
+                  "2025-11-26": {"1. open": "305.1800", "2. high": "306.6000", "3. low": "301.6400", "4. close": "303.2100", "5. volume": "200"},
+                  "2025-11-24": {"1. open": "299.1800", "2. high": "307.1800", "3. low": "297.5100", "4. close": "304.1200", "5. volume": "300"},
+                  "2025-11-21": {"1. open": "293.4800", "2. high": "300.4800", "3. low": "291.8900", "4. close": "297.4400", "5. volume": "400"},
+                  "2025-10-31": {"1. open": "280.0000", "2. high": "285.0000", "3. low": "279.0000", "4. close": "284.0000", "5. volume": "500"}
+                }
+                """);
+    }
+
+    @Test
+    public void resamplesDailyToWeekly() throws Exception {
+        ObjectNode weekly = BarResampler.resample(daily(), BarResampler.Resolution.of("TIME_SERIES_WEEKLY"));
+
+        List<String> keys = new ArrayList<>();
+        weekly.fieldNames().forEachRemaining(keys::add);
+        assertEquals(List.of("2025-11-28", "2025-11-21", "2025-10-31"), keys);
+
+        JsonNode week = weekly.get("2025-11-28");
+        assertEquals("299.1800", week.get("1. open").asText());
+        assertEquals("309.1800", week.get("2. high").asText());
+        assertEquals("297.5100", week.get("3. low").asText());
+        assertEquals("308.5800", week.get("4. close").asText());
+        assertEquals("600", week.get("5. volume").asText());
+    }
+
+    @Test
+    public void resamplesDailyToMonthly() throws Exception {
+        ObjectNode monthly = BarResampler.resample(daily(), BarResampler.Resolution.of("TIME_SERIES_MONTHLY"));
+
+        assertEquals(2, monthly.size());
+        assertEquals("293.4800", monthly.get("2025-11-28").get("1. open").asText());
+        assertEquals("1000", monthly.get("2025-11-28").get("5. volume").asText());
+        assertEquals("284.0000", monthly.get("2025-10-31").get("4. close").asText());
+    }
+
+    @Test
+    public void resamplesMinuteBarsToCoarserIntervals() throws Exception {
+        ObjectNode oneMin = mapper.createObjectNode();
+        for (int m = 0; m < 10; m++) {
+            ObjectNode bar = oneMin.putObject(String.format("2025-11-28 09:%02d:00", 30 + m));
+            bar.put("1. open", String.valueOf(100 + m));
+            bar.put("2. high", String.valueOf(101 + m));
+            bar.put("3. low", String.valueOf(99 + m));
+            bar.put("4. close", String.valueOf(100.5 + m));
+            bar.put("5. volume", "10");
+        }
+
+        ObjectNode fiveMin = BarResampler.resample(oneMin, BarResampler.Resolution.of("TIME_SERIES_INTRADAY_5MIN"));
+
+        assertEquals(2, fiveMin.size());
+        JsonNode first = fiveMin.get("2025-11-28 09:30:00");
+        assertEquals("100.0000", first.get("1. open").asText());
+        assertEquals("105.0000", first.get("2. high").asText());
+        assertEquals("99.0000", first.get("3. low").asText());
+        assertEquals("104.5000", first.get("4. close").asText());
+        assertEquals("50", first.get("5. volume").asText());
+        assertNotNull(fiveMin.get("2025-11-28 09:35:00"));
+    }
+
+    @Test
+    public void resolutionSourcesPreferFewestBars() {
+        assertEquals(List.of("TIME_SERIES_INTRADAY_15MIN", "TIME_SERIES_INTRADAY_10MIN", "TIME_SERIES_INTRADAY_6MIN", "TIME_SERIES_INTRADAY_5MIN"),
+                BarResampler.Resolution.of("TIME_SERIES_INTRADAY_30MIN").sources().subList(0, 4));
+        assertNull(BarResampler.Resolution.of("TIME_SERIES_DAILY_ADJUSTED"));
+    }
+
+    // a full-history daily series: more bars than upstream's compact response
+    private JsonNode fullDaily() {
+        ObjectNode series = mapper.createObjectNode();
+        java.time.LocalDate day = java.time.LocalDate.of(2025, 1, 1);
+        for (int i = 0; i <= BarCache.COMPACT_BARS; i++, day = day.plusDays(1)) {
+            ObjectNode bar = series.putObject(day.toString());
+            bar.put("1. open", "100");
+            bar.put("2. high", "101");
+            bar.put("3. low", "99");
+            bar.put("4. close", "100");
+            bar.put("5. volume", "10");
+        }
+        return series;
+    }
+
+    @Test
+    public void cacheServesCoarserStepFromCachedDaily() throws Exception {
+        BarCache cache = new BarCache(16, 60_000);
+        assertNull(cache.resampled("TIME_SERIES_WEEKLY", "IBM"));
+
+        cache.put("TIME_SERIES_DAILY", "IBM", fullDaily(), true);
+        JsonNode weekly = cache.resampled("TIME_SERIES_WEEKLY", "IBM");
+
+        assertNotNull(weekly);
+        assertEquals(15, weekly.size());
+        assertEquals(1L, cache.stats().get("resampled"));
+        // derived series are not stored
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void fullBaseIsReadBackInCompactLength() throws Exception {
+        BarCache cache = new BarCache(16, 60_000);
+        cache.put("TIME_SERIES_DAILY", "IBM", fullDaily(), true);
+
+        JsonNode daily = cache.get("TIME_SERIES_DAILY", "IBM");
+
+        assertEquals(BarCache.COMPACT_BARS, daily.size());
+        assertNotNull(daily.get("2025-04-11"));
+        assertNull(daily.get("2025-01-01"));
+        assertEquals("2025-04-11", daily.fieldNames().next());
+    }
+
+    @Test
+    public void compactDailyIsNotStretchedIntoWeeklyHistory() throws Exception {
+        BarCache cache = new BarCache(16, 60_000);
+        cache.put("TIME_SERIES_DAILY", "IBM", daily());
+
+        // upstream would send the full weekly history; five recent days cannot stand in for it
+        assertNull(cache.resampled("TIME_SERIES_WEEKLY", "IBM"));
+        assertEquals(0L, cache.stats().get("resampled"));
+    }
+
+    @Test
+    public void cacheEvictsLeastRecentlyUsedBeyondByteCap() throws Exception {
+        BarCache cache = new BarCache(16, 12 * AdmissionController.BYTES_PER_BAR, 60_000);
+        cache.put("TIME_SERIES_DAILY", "IBM", daily());
+        cache.put("TIME_SERIES_DAILY", "AAPL", daily());
+        assertNotNull(cache.get("TIME_SERIES_DAILY", "IBM"));
+
+        cache.put("TIME_SERIES_DAILY", "GOOGL", daily());
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("TIME_SERIES_DAILY", "AAPL"));
+        assertEquals(10 * AdmissionController.BYTES_PER_BAR, cache.stats().get("bytes"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.ttsudio.alphaback.simulate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class BatchModelTest {
+
+    /** Buys one share of every symbol on the first bar it sees and holds it to the end. */
+    public static class BuyFirstSellLast implements BatchModel {
+        int calls;
+        boolean bought;
+
+        @Override
+        public float[] simulateBatch(String[] symbols, String[] dates, float[] closes) {
+            calls++;
+            float[] orders = new float[dates.length * symbols.length];
+            if (!bought) {
+                for (int s = 0; s < symbols.length; s++) orders[s] = 1f;
+                bought = true;
+            }
+            return orders;
+        }
+    }
+
+    /** Not a BatchModel, only the same method signature, as a model built against alphaback-model would be. */
+    public static class SignatureOnly {
+        public float[] simulateBatch(String[] symbols, String[] dates, float[] closes) {
+            float[] orders = new float[dates.length * symbols.length];
+            orders[0] = 1f;
+            return orders;
+        }
+    }
+
+    private SimulateApplication.TimeSeriesData fixture(SimulateApplication app) throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/gatherDataResponse.json")) {
+            return app.parseTimeSeries(new String(in.readAllBytes()), List.of("IBM"));
+        }
+    }
+
+    @Test
+    public void batchModelRunsWholeSeriesInOneCall() throws Exception {
+        SimulateApplication app = new SimulateApplication();
+        BuyFirstSellLast model = new BuyFirstSellLast();
+
+        SimulationResponse resp = app.runSimulation(model, fixture(app).tsMap);
+
+        assertEquals("OK", resp.getStatus());
+        assertEquals(1, model.calls);
+        assertEquals(1, resp.getDecisions().size());
+        SimulationResponse.Decision d = resp.getDecisions().get(0);
+        assertEquals("IBM", d.getStock());
+        assertTrue(d.getIsBuy());
+        // one share bought at the first close and valued at the last close
+        assertNotEquals(SimulateApplication.STARTING_CAPITAL, resp.getEndingCapital().doubleValue());
+    }
+
+    @Test
+    public void batchModelClassIsDetectedAlongsideModel() throws Exception {
+        SimulateApplication app = new SimulateApplication();
+
+        Object model = app.instantiateModel(getClass().getClassLoader(),
+                "com/ttsudio/alphaback/simulate/BatchModelTest$BuyFirstSellLast");
+
+        assertInstanceOf(BatchModel.class, model);
+    }
+
+    @Test
+    public void batchSignatureIsDetectedWithoutTheInterface() throws Exception {
+        SimulateApplication app = new SimulateApplication();
+
+        Object model = app.instantiateModel(getClass().getClassLoader(),
+                "com/ttsudio/alphaback/simulate/BatchModelTest$SignatureOnly");
+        SimulationResponse resp = app.runSimulation(model, fixture(app).tsMap);
+
+        assertInstanceOf(BatchModel.class, model);
+        assertEquals(1, resp.getDecisions().size());
+        assertTrue(resp.getDecisions().get(0).getIsBuy());
+    }
+}
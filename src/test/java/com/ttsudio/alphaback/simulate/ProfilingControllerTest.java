@@ -0,0 +1,78 @@
+package com.ttsudio.alphaback.simulate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class ProfilingControllerTest {
+
+    private List<RecordedEvent> recordWhileSimulating(String modelFilter) throws Exception {
+        SimulateApplication app = new SimulateApplication();
+        String payload;
+        try (InputStream in = getClass().getResourceAsStream("/gatherDataResponse.json")) {
+            payload = new String(in.readAllBytes());
+        }
+
+        CompletableFuture<byte[]> jfr = CompletableFuture.supplyAsync(
+                () -> new ProfilingController().capture(Duration.ofSeconds(1), modelFilter, Duration.ZERO));
+        Thread.sleep(200);
+        SimulationEvents.Tags previous = SimulationEvents.bind(new SimulationEvents.Tags("model-a", "req-1"));
+        try {
+            SimulateApplication.TimeSeriesData tsData = app.parseTimeSeries(payload, List.of("IBM", "AAPL"));
+            app.runSimulation(new BatchModelTest.BuyFirstSellLast(), tsData.tsMap);
+        } finally {
+            SimulationEvents.restore(previous);
+        }
+
+        Path file = Files.createTempFile("profiling-test", ".jfr");
+        try {
+            Files.write(file, jfr.get());
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().startsWith(SimulationEvents.PREFIX))
+                    .toList();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void recordingContainsTaggedPhaseEvents() throws Exception {
+        List<RecordedEvent> events = recordWhileSimulating(null);
+
+        RecordedEvent batch = events.stream()
+                .filter(e -> e.getEventType().getName().equals(SimulationEvents.PREFIX + "EngineBatch"))
+                .findFirst().orElseThrow();
+        assertEquals("model-a", batch.getString("modelId"));
+        assertEquals("req-1", batch.getString("requestId"));
+        assertEquals(100, batch.getInt("bars"));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals(SimulationEvents.PREFIX + "Parse")));
+    }
+
+    @Test
+    public void recordingCanBeFilteredToOneModel() throws Exception {
+        assertFalse(recordWhileSimulating("model-a").isEmpty());
+        assertTrue(recordWhileSimulating("model-b").isEmpty());
+    }
+
+    @Test
+    public void endpointIsOffByDefault() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> new ProfilingController().record(1, null, 5));
+
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+    }
+}
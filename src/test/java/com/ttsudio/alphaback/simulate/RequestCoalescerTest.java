@@ -0,0 +1,109 @@
+package com.ttsudio.alphaback.simulate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class RequestCoalescerTest {
+
+    @Test
+    public void concurrentCallersShareOneExecution() throws Exception {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>("test");
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> coalescer.execute("model-1", () -> {
+                    calls.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "body";
+                })));
+            }
+            // wait until every caller is either running the loader or parked on it
+            long deadline = System.currentTimeMillis() + 5000;
+            while (coalescer.stats().get("coalescedHits") < callers - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> r : results) assertEquals("body", r.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(1L, coalescer.stats().get("executions"));
+        assertEquals((long) callers - 1, coalescer.stats().get("coalescedHits"));
+        assertEquals(0, coalescer.inFlightCount());
+    }
+
+    @Test
+    public void failureIsPropagatedAndNotCached() {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>("test");
+        RuntimeException boom = new RuntimeException("lambda unavailable");
+
+        RuntimeException thrown = assertThrows(RuntimeException.class,
+                () -> coalescer.execute("k", () -> { throw boom; }));
+        assertSame(boom, thrown);
+        assertEquals(1L, coalescer.stats().get("failures"));
+
+        // next caller retries instead of seeing the stale failure
+        assertEquals("ok", coalescer.execute("k", () -> "ok"));
+        assertEquals(2L, coalescer.stats().get("executions"));
+    }
+
+    @Test
+    public void waitersReceiveLeaderFailure() throws Exception {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>("test");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> coalescer.execute("k", () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("gatherData failed");
+            }));
+            started.await(5, TimeUnit.SECONDS);
+            Future<String> waiter = pool.submit(() -> coalescer.execute("k", () -> "unused"));
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (coalescer.stats().get("coalescedHits") < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            java.util.concurrent.ExecutionException leaderErr = assertThrows(java.util.concurrent.ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+            java.util.concurrent.ExecutionException waiterErr = assertThrows(java.util.concurrent.ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertEquals(IllegalStateException.class, leaderErr.getCause().getClass());
+            assertEquals(IllegalStateException.class, waiterErr.getCause().getClass());
+            assertEquals("gatherData failed", waiterErr.getCause().getMessage());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
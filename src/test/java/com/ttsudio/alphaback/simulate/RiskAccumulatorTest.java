@@ -0,0 +1,86 @@
+package com.ttsudio.alphaback.simulate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class RiskAccumulatorTest {
+
+    @Test
+    public void tracksDrawdownVolatilityAndExposure() {
+        RiskAccumulator risk = new RiskAccumulator(100, 252);
+        double[] equity = { 100, 110, 99, 121, 110 };
+        for (int i = 0; i < equity.length; i++) {
+            // half the equity is always in positions
+            risk.onBar("d" + i, equity[i] / 2, equity[i] / 2);
+        }
+
+        SimulationResponse.RiskMetrics m = risk.result(new Ledger(100));
+
+        assertEquals(5, m.getBars());
+        // worst peak-to-trough is 110 -> 99
+        assertEquals(10.0, m.getMaxDrawdownPercentage(), 1e-9);
+        assertEquals(0.5, m.getExposure(), 1e-9);
+
+        double[] r = { 0.1, 99.0 / 110 - 1, 121.0 / 99 - 1, 110.0 / 121 - 1 };
+        double mean = (r[0] + r[1] + r[2] + r[3]) / 4;
+        double var = 0;
+        for (double x : r) var += (x - mean) * (x - mean);
+        double std = Math.sqrt(var / 3);
+        assertEquals(std * Math.sqrt(252), m.getVolatility(), 1e-9);
+        assertEquals(mean / std * Math.sqrt(252), m.getSharpe(), 1e-9);
+        assertEquals(5, m.getEquityCurve().size());
+    }
+
+    @Test
+    public void equityCurveStaysBoundedAndEndsOnLastBar() {
+        RiskAccumulator risk = new RiskAccumulator(10, 252);
+        for (int i = 0; i < 10_000; i++) risk.onBar(String.format("bar-%05d", i), 100 + i, 0);
+
+        List<SimulationResponse.EquityPoint> curve = risk.result(new Ledger(100)).getEquityCurve();
+
+        assertTrue(curve.size() <= 11, "curve size " + curve.size());
+        assertTrue(curve.size() >= 5, "curve size " + curve.size());
+        assertEquals("bar-00000", curve.get(0).getDate());
+        assertEquals("bar-09999", curve.get(curve.size() - 1).getDate());
+    }
+
+    @Test
+    public void ledgerCountsWinningClosingTrades() {
+        Ledger ledger = new Ledger(1000);
+        assertEquals(100.0, ledger.apply("IBM", 1f, true, 100f), 1e-9);
+        ledger.apply("IBM", 1f, true, 120f);
+        // sells above the 110 average entry win, below it lose
+        ledger.apply("IBM", 1f, false, 115f);
+        ledger.apply("IBM", 1f, false, 105f);
+        // nothing left to sell: not a trade
+        assertEquals(0.0, ledger.apply("IBM", 1f, false, 200f), 1e-9);
+
+        assertEquals(2, ledger.closedTrades);
+        assertEquals(1, ledger.winningTrades);
+    }
+
+    @Test
+    public void simulationReturnsRiskAndCanOmitDecisions() throws Exception {
+        SimulateApplication app = new SimulateApplication();
+        SimulateApplication.TimeSeriesData tsData;
+        try (InputStream in = getClass().getResourceAsStream("/gatherDataResponse.json")) {
+            tsData = app.parseTimeSeries(new String(in.readAllBytes()), List.of("IBM", "AAPL"));
+        }
+        SimulationOptions options = new SimulationOptions();
+        options.setIncludeDecisions(false);
+
+        SimulationResponse resp = app.runSimulation(new BatchModelTest.BuyFirstSellLast(), tsData.tsMap, options);
+
+        assertTrue(resp.getDecisions().isEmpty());
+        assertNotNull(resp.getRisk());
+        assertEquals(100, resp.getRisk().getBars());
+        assertTrue(resp.getRisk().getTurnover() > 0);
+        assertEquals(resp.getEndingCapital(), resp.getRisk().getEquityCurve().get(resp.getRisk().getEquityCurve().size() - 1).getEquity(), 1e-6);
+    }
+}
@@ -1,6 +1,7 @@
 package com.ttsudio.alphaback.simulate;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import java.io.File;
@@ -108,6 +109,30 @@ public class SimulateApplicationUnitTest {
         assertNotNull(resp.getDecisions());
     }
 
+    @Test
+    public void weeklyAfterDailyIsResampledWithoutCallingGatherData() throws Exception {
+        SimulateApplication app = new SimulateApplication();
+        java.lang.reflect.Field f = SimulateApplication.class.getDeclaredField("lambdaClient");
+        f.setAccessible(true);
+        f.set(app, mockLambda);
+        ArgumentMatcher<InvokeRequest> gatherData = req -> req != null && req.functionName() != null
+                && req.functionName().contains("gatherData");
+
+        List<String> stocks = Arrays.asList("AAPL", "IBM");
+        SimulationResponse daily = app.simulate(stocks, "726034f9-44c7-49df-9fac-1241da8ef221", "TIME_SERIES_DAILY");
+        SimulationResponse weekly = app.simulate(stocks, "726034f9-44c7-49df-9fac-1241da8ef221", "TIME_SERIES_WEEKLY");
+
+        assertEquals("OK", daily.getStatus());
+        assertEquals("OK", weekly.getStatus());
+        org.mockito.ArgumentCaptor<InvokeRequest> fetched = org.mockito.ArgumentCaptor.forClass(InvokeRequest.class);
+        org.mockito.Mockito.verify(mockLambda, org.mockito.Mockito.times(1)).invoke(org.mockito.ArgumentMatchers.argThat(gatherData));
+        org.mockito.Mockito.verify(mockLambda, org.mockito.Mockito.atLeastOnce()).invoke(fetched.capture());
+        String payload = fetched.getAllValues().stream().filter(gatherData::matches).findFirst().orElseThrow()
+                .payload().asUtf8String();
+        org.junit.jupiter.api.Assertions.assertTrue(payload.contains("\"outputsize\":\"full\""), payload);
+        assertEquals(2L, app.barCacheMetrics().get("resampled"));
+    }
+
     @Test
     public void simulateThrowsExceptionWhenClassNotFound() throws Exception {
         LambdaClient mockForMissingClass = org.mockito.Mockito.mock(LambdaClient.class);
@@ -417,7 +442,7 @@ public class SimulateApplicationUnitTest {
             throw new RuntimeException("Existing ExampleModel.class not found at " + existing.getAbsolutePath());
         }
 
-        // choose a different classPath so the normalized target is models/downloaded/ExampleModel.class
+        // choose a different classPath so the normalized target is models/test-id/downloaded/ExampleModel.class
         String classPathRaw = "downloaded.ExampleModel";
         String downloadUrl = new java.io.File(existing.getAbsolutePath()).toURI().toString(); // file:// URL
 
@@ -457,7 +482,8 @@ public class SimulateApplicationUnitTest {
         }))).thenReturn(InvokeResponse.builder().payload(SdkBytes.fromUtf8String(readResource("/serviceConsumerResponse.json"))).build());
 
         // ensure target doesn't exist
-        java.io.File target = new java.io.File("models/downloaded/ExampleModel.class");
+        java.io.File modelDir = new java.io.File("models/test-id");
+        java.io.File target = new java.io.File(modelDir, "downloaded/ExampleModel.class");
         if (target.exists()) target.delete();
 
         SimulateApplication app = new SimulateApplication();
@@ -477,6 +503,16 @@ public class SimulateApplicationUnitTest {
 
         // cleanup
         if (target.exists()) target.delete();
+        target.getParentFile().delete();
+        modelDir.delete();
+    }
+
+    @Test
+    public void modelDirectoriesDoNotCollide() {
+        assertNotEquals(SimulateApplication.modelDirName("a.b"), SimulateApplication.modelDirName("a_b"));
+        assertNotEquals(SimulateApplication.modelDirName("a/b"), SimulateApplication.modelDirName("a%2Fb"));
+        assertEquals("test-id", SimulateApplication.modelDirName("test-id"));
+        assertEquals("%2E%2E", SimulateApplication.modelDirName(".."));
     }
 
     private String readResource(String path) throws Exception {
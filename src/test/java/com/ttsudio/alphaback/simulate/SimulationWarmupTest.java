@@ -0,0 +1,23 @@
+package com.ttsudio.alphaback.simulate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class SimulationWarmupTest {
+
+    @Test
+    public void warmUpRunsBundledModelWithoutLambda() throws Exception {
+        SimulateApplication app = new SimulateApplication();
+        SimulationWarmup warmup = new SimulationWarmup(app, null);
+        warmup.iterations = 3;
+        warmup.modelDir = "models";
+        warmup.modelClass = "com/ttsudio/alphaback/ExampleModel";
+        warmup.fixture = "gatherDataResponse.json";
+
+        assertEquals(3, warmup.warmUp());
+        // the AWS client must stay uncreated so warm-up never touches the network
+        assertNull(app.lambdaClient);
+    }
+}
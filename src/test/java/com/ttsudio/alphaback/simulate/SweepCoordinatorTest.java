@@ -0,0 +1,331 @@
+package com.ttsudio.alphaback.simulate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class SweepCoordinatorTest {
+
+    private SweepRequest request(int models, int symbolSets, int windows) {
+        SweepRequest req = new SweepRequest();
+        for (int i = 0; i < models; i++) req.getModelIds().add("model-" + i);
+        for (int i = 0; i < symbolSets; i++) req.getSymbolSets().add(Arrays.asList("AAPL", "SYM" + i));
+        for (int i = 0; i < windows; i++) req.getWindows().add(new SweepRequest.Window("2025-0" + (i + 1) + "-01", "2025-0" + (i + 1) + "-28"));
+        return req;
+    }
+
+    private SimulationResponse ok() {
+        SimulationResponse resp = new SimulationResponse();
+        resp.setStatus("OK");
+        return resp;
+    }
+
+    // a stand-in for another instance of this service on its own local port
+    private HttpServer server(Map<String, HttpHandler> contexts) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        contexts.forEach(server::createContext);
+        server.start();
+        return server;
+    }
+
+    private String url(HttpServer server) {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // answers 200 with the shard's model echoed in the status, so the test can see the payload arrived
+    private HttpHandler okWorker(AtomicInteger served) {
+        return exchange -> {
+            SweepShard shard = new ObjectMapper().readValue(exchange.getRequestBody(), SweepShard.class);
+            served.incrementAndGet();
+            respond(exchange, 200, "{\"status\":\"OK " + shard.getModelId() + "\"}");
+        };
+    }
+
+    @Test
+    public void partitionsIntoModelSymbolWindowProduct() {
+        SweepCoordinator coordinator = new SweepCoordinator(null);
+        List<SweepShard> shards = coordinator.partition(request(2, 3, 4));
+
+        assertEquals(24, shards.size());
+        for (int i = 0; i < shards.size(); i++) assertEquals(i, shards.get(i).getShardId());
+        // no windows means one shard over the full series
+        assertNull(coordinator.partition(request(1, 1, 0)).get(0).getFrom());
+    }
+
+    @Test
+    public void failedShardsAreReassignedToAnotherWorker() {
+        SweepCoordinator coordinator = new SweepCoordinator(null);
+        coordinator.registerWorker("http://localhost:8081");
+        coordinator.registerWorker("http://localhost:8082/");
+        coordinator.dispatcher = (worker, shard) -> {
+            if (worker.endsWith("8081")) throw new RuntimeException("connection refused");
+            return ok();
+        };
+
+        SweepResult result = coordinator.execute(request(2, 2, 1));
+
+        assertEquals("OK", result.getStatus());
+        assertEquals(4, result.getTotalShards());
+        for (SweepResult.ShardResult r : result.getShards()) {
+            assertEquals("http://localhost:8082", r.getWorker());
+            assertNotNull(r.getResponse());
+        }
+    }
+
+    @Test
+    public void shardFailingEverywhereIsReportedAfterMaxAttempts() {
+        SweepCoordinator coordinator = new SweepCoordinator(null);
+        coordinator.maxWorkerFailures = 100;
+        coordinator.dispatcher = (worker, shard) -> {
+            if ("model-1".equals(shard.getModelId())) throw new RuntimeException("bad model");
+            return ok();
+        };
+
+        SweepResult result = coordinator.execute(request(2, 1, 1));
+
+        assertEquals("PARTIAL", result.getStatus());
+        assertEquals(1, result.getFailedShards());
+        SweepResult.ShardResult failed = result.getShards().get(1);
+        assertEquals("bad model", failed.getError());
+        assertEquals(coordinator.maxAttempts, failed.getAttempts());
+    }
+
+    @Test
+    public void badModelAcrossManyShardsDoesNotDropWorkers() {
+        SweepCoordinator coordinator = new SweepCoordinator(null);
+        coordinator.registerWorker("http://localhost:8081");
+        coordinator.registerWorker("http://localhost:8082");
+        coordinator.dispatcher = (worker, shard) -> {
+            if ("model-0".equals(shard.getModelId())) throw new SweepCoordinator.ShardFailedException("bad model", null);
+            return ok();
+        };
+
+        // model-0's four shards come first, so each worker sees several failures in a row
+        SweepResult result = coordinator.execute(request(2, 4, 1));
+
+        assertEquals("PARTIAL", result.getStatus());
+        assertEquals(4, result.getFailedShards());
+        for (SweepResult.ShardResult r : result.getShards()) {
+            if ("model-0".equals(r.getShard().getModelId())) {
+                assertEquals("bad model", r.getError());
+                assertEquals(coordinator.maxAttempts, r.getAttempts());
+            } else {
+                assertNull(r.getError());
+                assertNotNull(r.getResponse());
+            }
+        }
+    }
+
+    @Test
+    public void busyWorkerIsRetriedWithoutPenalty() {
+        SweepCoordinator coordinator = new SweepCoordinator(null);
+        coordinator.busyBackoffMs = 1;
+        coordinator.registerWorker("http://localhost:8081");
+        AtomicInteger calls = new AtomicInteger();
+        coordinator.dispatcher = (worker, shard) -> {
+            // more busy answers in a row than maxWorkerFailures or maxAttempts
+            if (calls.incrementAndGet() <= 5) throw new SweepCoordinator.WorkerBusyException("queue full", null);
+            return ok();
+        };
+
+        SweepResult result = coordinator.execute(request(1, 2, 1));
+
+        assertEquals("OK", result.getStatus());
+        for (SweepResult.ShardResult r : result.getShards()) {
+            assertEquals("http://localhost:8081", r.getWorker());
+            assertEquals(1, r.getAttempts());
+        }
+    }
+
+    @Test
+    public void sweepEndpointsAreOffByDefault() {
+        SweepController controller = new SweepController(new SweepCoordinator(null));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> controller.registerWorker("http://attacker.example"));
+
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> controller.shard(new SweepShard()));
+    }
+
+    @Test
+    public void workersExpireUnlessTheyReregister() throws Exception {
+        SweepCoordinator coordinator = new SweepCoordinator(null);
+        coordinator.workerTtlMs = 100;
+        coordinator.registerWorker("http://localhost:8081");
+        coordinator.registerWorker("http://localhost:8082");
+
+        Thread.sleep(60);
+        coordinator.registerWorker("http://localhost:8082");
+        Thread.sleep(60);
+
+        assertEquals(Set.of("http://localhost:8082"), coordinator.getWorkers());
+        assertThrows(IllegalArgumentException.class, () -> coordinator.registerWorker("file:///etc/passwd"));
+    }
+
+    @Test
+    public void dispatchMapsWorkerStatusesOverHttp() throws Exception {
+        HttpServer server = server(Map.of(
+                "/ok/sweep/shard", okWorker(new AtomicInteger()),
+                "/bad/sweep/shard", exchange -> respond(exchange, SweepController.SHARD_FAILED_STATUS, "{\"status\":\"bad model\"}"),
+                "/busy/sweep/shard", exchange -> respond(exchange, 503, ""),
+                "/gone/sweep/shard", exchange -> respond(exchange, 404, ""),
+                "/broken/sweep/shard", exchange -> respond(exchange, 500, "")));
+        try {
+            SweepCoordinator coordinator = new SweepCoordinator(null);
+            SweepShard shard = new SweepShard(0, "model-0", List.of("AAPL"), "TIME_SERIES_DAILY", null, null);
+            String base = url(server);
+
+            assertEquals("OK model-0", coordinator.dispatch(base + "/ok", shard).getStatus());
+            SweepCoordinator.ShardFailedException failed = assertThrows(SweepCoordinator.ShardFailedException.class,
+                    () -> coordinator.dispatch(base + "/bad", shard));
+            assertEquals("bad model", failed.getMessage());
+            assertThrows(SweepCoordinator.WorkerBusyException.class, () -> coordinator.dispatch(base + "/busy", shard));
+            assertThrows(SweepCoordinator.ShardFailedException.class, () -> coordinator.dispatch(base + "/gone", shard));
+            RuntimeException broken = assertThrows(RuntimeException.class, () -> coordinator.dispatch(base + "/broken", shard));
+            assertFalse(broken instanceof SweepCoordinator.ShardFailedException || broken instanceof SweepCoordinator.WorkerBusyException);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void sweepRunsAcrossWorkersOnSeveralLocalPorts() throws Exception {
+        AtomicInteger servedA = new AtomicInteger();
+        AtomicInteger servedB = new AtomicInteger();
+        AtomicInteger busyAnswers = new AtomicInteger();
+        HttpHandler okA = okWorker(servedA);
+        HttpServer a = server(Map.of("/sweep/shard", exchange -> {
+            // at capacity for more requests in a row than maxWorkerFailures, then healthy
+            if (busyAnswers.incrementAndGet() <= 4) respond(exchange, 503, "");
+            else okA.handle(exchange);
+        }));
+        HttpServer b = server(Map.of("/sweep/shard", okWorker(servedB)));
+        try {
+            SweepCoordinator coordinator = new SweepCoordinator(null);
+            coordinator.busyBackoffMs = 1;
+            coordinator.registerWorker(url(a));
+            coordinator.registerWorker(url(b));
+
+            SweepResult result = coordinator.execute(request(1, 6, 1));
+
+            assertEquals("OK", result.getStatus());
+            assertEquals(6, servedA.get() + servedB.get());
+            for (SweepResult.ShardResult r : result.getShards()) {
+                assertEquals("OK model-0", r.getResponse().getStatus());
+                assertEquals(1, r.getAttempts());
+                assertTrue(r.getWorker().equals(url(a)) || r.getWorker().equals(url(b)));
+            }
+        } finally {
+            a.stop(0);
+            b.stop(0);
+        }
+    }
+
+    @Test
+    public void busyHttpWorkerIsNotDropped() throws Exception {
+        AtomicInteger served = new AtomicInteger();
+        AtomicInteger requests = new AtomicInteger();
+        HttpHandler ok = okWorker(served);
+        HttpServer worker = server(Map.of("/sweep/shard", exchange -> {
+            if (requests.incrementAndGet() <= 4) respond(exchange, 503, "");
+            else ok.handle(exchange);
+        }));
+        try {
+            SweepCoordinator coordinator = new SweepCoordinator(null);
+            coordinator.busyBackoffMs = 1;
+            coordinator.registerWorker(url(worker));
+
+            SweepResult result = coordinator.execute(request(1, 2, 1));
+
+            assertEquals("OK", result.getStatus());
+            assertEquals(2, served.get());
+            assertEquals(6, requests.get());
+        } finally {
+            worker.stop(0);
+        }
+    }
+
+    @Test
+    public void workerRegistersWithCoordinatorOverHttp() throws Exception {
+        SweepCoordinator coordinator = new SweepCoordinator(null);
+        coordinator.enabled = true;
+        SweepController controller = new SweepController(coordinator);
+        // the coordinator instance's registration endpoint, backed by the real controller
+        HttpServer coordinatorServer = server(Map.of("/sweep/workers", exchange -> {
+            String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), StandardCharsets.UTF_8);
+            controller.registerWorker(query.substring("url=".length()));
+            respond(exchange, 200, "[]");
+        }));
+        try {
+            SweepCoordinator worker = new SweepCoordinator(null);
+
+            assertTrue(worker.registerWith(url(coordinatorServer), "http://localhost:8081"));
+
+            assertEquals(Set.of("http://localhost:8081"), coordinator.getWorkers());
+        } finally {
+            coordinatorServer.stop(0);
+        }
+    }
+
+    @Test
+    public void idleWorkerStealsSlowShard() {
+        SweepCoordinator coordinator = new SweepCoordinator(null);
+        coordinator.stealAfterMs = 50;
+        coordinator.registerWorker("http://localhost:8081");
+        coordinator.registerWorker("http://localhost:8082");
+        AtomicBoolean slowStarted = new AtomicBoolean();
+        coordinator.dispatcher = (worker, shard) -> {
+            // whichever worker picks the shard up first stalls
+            if (slowStarted.compareAndSet(false, true)) {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return ok();
+        };
+
+        long start = System.currentTimeMillis();
+        SweepResult result = coordinator.execute(request(1, 1, 1));
+
+        assertEquals("OK", result.getStatus());
+        assertTrue(result.getShards().get(0).isStolen());
+        // the stolen copy wins, so the sweep does not wait out the slow original
+        assertTrue(System.currentTimeMillis() - start < 2000);
+    }
+}
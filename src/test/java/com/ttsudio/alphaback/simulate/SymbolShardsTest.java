@@ -0,0 +1,152 @@
+package com.ttsudio.alphaback.simulate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class SymbolShardsTest {
+
+    /** Buys one share of each symbol on its first bar and sells it on the 50th. */
+    public static class RoundTripPerSymbol implements BatchModel, SymbolIndependent {
+        int seen;
+
+        @Override
+        public float[] simulateBatch(String[] symbols, String[] dates, float[] closes) {
+            float[] orders = new float[dates.length * symbols.length];
+            for (int r = 0; r < dates.length; r++, seen++) {
+                for (int s = 0; s < symbols.length; s++) {
+                    if (seen == 0) orders[r * symbols.length + s] = 1f;
+                    else if (seen == 49) orders[r * symbols.length + s] = -1f;
+                }
+            }
+            return orders;
+        }
+    }
+
+    /** The same model as a class built against alphaback-model would declare it: no engine interfaces. */
+    public static class DeclaredPerSymbol {
+        private final RoundTripPerSymbol delegate = new RoundTripPerSymbol();
+
+        public boolean isSymbolIndependent() {
+            return true;
+        }
+
+        public float[] simulateBatch(String[] symbols, String[] dates, float[] closes) {
+            return delegate.simulateBatch(symbols, dates, closes);
+        }
+    }
+
+    /** S00 flips in and out of one share on every bar; every other symbol buys once, on bar 60. */
+    public static class BusyFirstSymbol implements BatchModel, SymbolIndependent {
+        int seen;
+
+        @Override
+        public float[] simulateBatch(String[] symbols, String[] dates, float[] closes) {
+            float[] orders = new float[dates.length * symbols.length];
+            for (int r = 0; r < dates.length; r++, seen++) {
+                for (int s = 0; s < symbols.length; s++) {
+                    if ("S00".equals(symbols[s])) orders[r * symbols.length + s] = seen % 2 == 0 ? 1f : -1f;
+                    else if (seen == 60) orders[r * symbols.length + s] = 1f;
+                }
+            }
+            return orders;
+        }
+    }
+
+    // twelve symbols cycling over the fixture's two series, enough to span several shards
+    private Map<String, JsonNode> universe(SimulateApplication app) throws Exception {
+        SimulateApplication.TimeSeriesData tsData;
+        try (InputStream in = getClass().getResourceAsStream("/gatherDataResponse.json")) {
+            tsData = app.parseTimeSeries(new String(in.readAllBytes()), List.of("IBM", "AAPL"));
+        }
+        Map<String, JsonNode> tsMap = new HashMap<>();
+        for (int i = 0; i < 12; i++) tsMap.put(String.format("S%02d", i), tsData.tsMap.get(i % 2 == 0 ? "IBM" : "AAPL"));
+        return tsMap;
+    }
+
+    @Test
+    public void shardedRunIsTheSumOfPerSymbolRuns() throws Exception {
+        SimulateApplication app = new SimulateApplication();
+        Map<String, JsonNode> tsMap = universe(app);
+
+        SimulationResponse resp = app.runSimulation(new RoundTripPerSymbol(), tsMap);
+
+        double expectedPnl = 0;
+        for (Map.Entry<String, JsonNode> e : tsMap.entrySet()) {
+            SimulationResponse single = app.runSimulation(new RoundTripPerSymbol(), Map.of(e.getKey(), e.getValue()));
+            expectedPnl += single.getEndingCapital() - SimulateApplication.STARTING_CAPITAL;
+        }
+        assertEquals(SimulateApplication.STARTING_CAPITAL + expectedPnl, resp.getEndingCapital(), 1e-6);
+
+        assertEquals(24, resp.getDecisions().size());
+        for (int i = 1; i < resp.getDecisions().size(); i++) {
+            assertTrue(resp.getDecisions().get(i - 1).getDate().compareTo(resp.getDecisions().get(i).getDate()) <= 0);
+        }
+        assertEquals(100, resp.getRisk().getBars());
+        assertEquals(12, resp.getRisk().getClosedTrades());
+        List<SimulationResponse.EquityPoint> curve = resp.getRisk().getEquityCurve();
+        assertEquals(SimulateApplication.STARTING_CAPITAL, curve.get(0).getEquity(), 1e-6);
+        assertEquals(resp.getEndingCapital(), curve.get(curve.size() - 1).getEquity(), 1e-6);
+        assertFalse(resp.isDecisionsTruncated());
+    }
+
+    @Test
+    public void independenceDeclaredByMethodIsSharded() throws Exception {
+        SimulateApplication app = new SimulateApplication();
+        Map<String, JsonNode> tsMap = universe(app);
+        Object model = app.instantiateModel(getClass().getClassLoader(),
+                "com/ttsudio/alphaback/simulate/SymbolShardsTest$DeclaredPerSymbol");
+
+        SimulationResponse declared = app.runSimulation(model, tsMap);
+        SimulationResponse marked = app.runSimulation(new RoundTripPerSymbol(), tsMap);
+
+        assertEquals(marked.getEndingCapital(), declared.getEndingCapital(), 1e-9);
+        assertEquals(24, declared.getDecisions().size());
+    }
+
+    @Test
+    public void cappedDecisionsKeepEachSymbolsEarliestShareInDateOrder() throws Exception {
+        SimulateApplication app = new SimulateApplication();
+        SimulationOptions options = new SimulationOptions();
+        options.setMaxDecisions(5);
+
+        SimulationResponse resp = app.runSimulation(new RoundTripPerSymbol(), universe(app), options);
+
+        assertTrue(resp.isDecisionsTruncated());
+        assertEquals(5, resp.getDecisions().size());
+        assertEquals(List.of("S00", "S01", "S02", "S03", "S04"),
+                resp.getDecisions().stream().map(SimulationResponse.Decision::getStock).toList());
+        assertTrue(resp.getDecisions().stream().allMatch(SimulationResponse.Decision::getIsBuy));
+    }
+
+    @Test
+    public void cappedDecisionsAreSplitAcrossSymbolsNotTakenFromTheBusiestOne() throws Exception {
+        SimulateApplication app = new SimulateApplication();
+        SimulationOptions options = new SimulationOptions();
+        options.setMaxDecisions(12);
+
+        SimulationResponse resp = app.runSimulation(new BusyFirstSymbol(), universe(app), options);
+
+        // unsharded, S00's first twelve flips would fill the cap; sharded, each symbol keeps its earliest one
+        assertTrue(resp.isDecisionsTruncated());
+        assertEquals(12, resp.getDecisions().size());
+        assertEquals("S00", resp.getDecisions().get(0).getStock());
+        Map<String, Long> perSymbol = resp.getDecisions().stream()
+                .collect(Collectors.groupingBy(SimulationResponse.Decision::getStock, Collectors.counting()));
+        assertEquals(12, perSymbol.size());
+        assertTrue(perSymbol.values().stream().allMatch(n -> n == 1));
+        for (int i = 1; i < resp.getDecisions().size(); i++) {
+            assertTrue(resp.getDecisions().get(i - 1).getDate().compareTo(resp.getDecisions().get(i).getDate()) <= 0);
+        }
+    }
+}